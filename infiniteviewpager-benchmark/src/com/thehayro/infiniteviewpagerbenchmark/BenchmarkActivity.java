@@ -0,0 +1,171 @@
+/*
+ * Copyright (C) 2013 Onur-Hayri Bakici
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.thehayro.infiniteviewpagerbenchmark;
+
+import com.thehayro.view.InfiniteViewPager;
+import com.thehayro.view.PagerMetrics;
+import com.thehayro.view.SimplePagerMetrics;
+
+import android.app.Activity;
+import android.content.Intent;
+import android.os.Bundle;
+import android.os.Debug;
+import android.util.Log;
+
+/**
+ * Drives an {@link InfiniteViewPager} through a fixed number of page shifts on a device and reports
+ * the time and allocations per shift. The swipe benchmark of the tests runs on the JVM and fails the
+ * build on a regression. All parameters are passed as intent extras, e.g.
+ * <pre>
+ * adb shell am start -W -n com.thehayro.infiniteviewpagerbenchmark/.BenchmarkActivity \
+ *     --ei depth 4 --ei width 3 --ei swipes 500 --ez recycling true \
+ *     --el max_nanos_per_swipe 2000000 --ei max_allocs_per_swipe 8
+ * </pre>
+ * Results are logged under {@link #TAG}. A run that exceeds one of the given limits logs
+ * {@code FAIL} and finishes with {@link #RESULT_CANCELED}, otherwise it finishes with
+ * {@link #RESULT_OK}.
+ */
+public class BenchmarkActivity extends Activity {
+
+    public static final String TAG = "InfiniteViewPagerBenchmark";
+
+    /** Nesting depth of the view hierarchy of each page. */
+    public static final String EXTRA_DEPTH = "depth";
+
+    /** Number of children of each nested layout. */
+    public static final String EXTRA_WIDTH = "width";
+
+    /** Number of measured page shifts. */
+    public static final String EXTRA_SWIPES = "swipes";
+
+    /** Number of unmeasured page shifts before measuring. */
+    public static final String EXTRA_WARMUP = "warmup";
+
+    public static final String EXTRA_OFFSCREEN_PAGE_LIMIT = "offscreen_page_limit";
+
+    public static final String EXTRA_RECYCLING = "recycling";
+
+    public static final String EXTRA_ROTATION = "rotation";
+
+    public static final String EXTRA_PAGE_CACHE_SIZE = "page_cache_size";
+
+    /** Upper limit of the average time per shift. {@code 0} disables the check. */
+    public static final String EXTRA_MAX_NANOS_PER_SWIPE = "max_nanos_per_swipe";
+
+    /** Upper limit of the average allocations per shift. {@code -1} disables the check. */
+    public static final String EXTRA_MAX_ALLOCS_PER_SWIPE = "max_allocs_per_swipe";
+
+    private InfiniteViewPager mViewPager;
+
+    private SimplePagerMetrics mMetrics;
+
+    private int mDepth;
+
+    private int mWidth;
+
+    private int mSwipes;
+
+    private int mWarmup;
+
+    private long mMaxNanosPerSwipe;
+
+    private int mMaxAllocsPerSwipe;
+
+    private final Runnable mBenchmarkRunnable = new Runnable() {
+        @Override
+        public void run() {
+            if (mViewPager.getChildCount() == 0) {
+                // pages are not attached yet, wait for the first layout pass.
+                mViewPager.post(this);
+                return;
+            }
+            runBenchmark();
+        }
+    };
+
+    @Override
+    public void onCreate(final Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        final Intent intent = getIntent();
+        mDepth = intent.getIntExtra(EXTRA_DEPTH, 3);
+        mWidth = intent.getIntExtra(EXTRA_WIDTH, 3);
+        mSwipes = intent.getIntExtra(EXTRA_SWIPES, 200);
+        mWarmup = intent.getIntExtra(EXTRA_WARMUP, 20);
+        mMaxNanosPerSwipe = intent.getLongExtra(EXTRA_MAX_NANOS_PER_SWIPE, 0);
+        mMaxAllocsPerSwipe = intent.getIntExtra(EXTRA_MAX_ALLOCS_PER_SWIPE, -1);
+
+        final BenchmarkPagerAdapter adapter = new BenchmarkPagerAdapter(this, 0,
+            intent.getIntExtra(EXTRA_OFFSCREEN_PAGE_LIMIT, 1), mDepth, mWidth);
+        adapter.setRecyclingEnabled(intent.getBooleanExtra(EXTRA_RECYCLING, false));
+        adapter.setPageRotationEnabled(intent.getBooleanExtra(EXTRA_ROTATION, false));
+        adapter.setPageCacheSize(intent.getIntExtra(EXTRA_PAGE_CACHE_SIZE, 0));
+        mMetrics = new SimplePagerMetrics();
+        adapter.setPagerMetrics(mMetrics);
+
+        mViewPager = new InfiniteViewPager(this);
+        mViewPager.setAdapter(adapter);
+        setContentView(mViewPager);
+        mViewPager.post(mBenchmarkRunnable);
+    }
+
+    private void runBenchmark() {
+        // box all indicators up front so the loop only measures the pager.
+        final Integer[] indicators = new Integer[mWarmup + mSwipes];
+        for (int i = 0; i < indicators.length; i++) {
+            indicators[i] = Integer.valueOf(i + 1);
+        }
+        for (int i = 0; i < mWarmup; i++) {
+            mViewPager.setCurrentIndicator(indicators[i]);
+        }
+        mMetrics.reset();
+
+        Debug.resetThreadAllocCount();
+        Debug.startAllocCounting();
+        final long start = System.nanoTime();
+        for (int i = mWarmup; i < indicators.length; i++) {
+            mViewPager.setCurrentIndicator(indicators[i]);
+        }
+        final long duration = System.nanoTime() - start;
+        Debug.stopAllocCounting();
+        final int allocCount = Debug.getThreadAllocCount();
+        final int allocSize = Debug.getThreadAllocSize();
+
+        final long nanosPerSwipe = duration / Math.max(1, mSwipes);
+        final int allocsPerSwipe = allocCount / Math.max(1, mSwipes);
+        Log.i(TAG, "swipes=" + mSwipes + " depth=" + mDepth + " width=" + mWidth);
+        Log.i(TAG, "nanos/swipe=" + nanosPerSwipe + " allocs/swipe=" + allocsPerSwipe
+            + " bytes/swipe=" + allocSize / Math.max(1, mSwipes));
+        Log.i(TAG, "fill p50=" + mMetrics.getPercentileMicros(PagerMetrics.OPERATION_FILL, 50f)
+            + "us p99=" + mMetrics.getPercentileMicros(PagerMetrics.OPERATION_FILL, 99f) + "us");
+        Log.i(TAG, mMetrics.toString());
+
+        boolean passed = true;
+        if (mMaxNanosPerSwipe > 0 && nanosPerSwipe > mMaxNanosPerSwipe) {
+            Log.e(TAG, "FAIL: " + nanosPerSwipe + " nanos/swipe exceeds " + mMaxNanosPerSwipe);
+            passed = false;
+        }
+        if (mMaxAllocsPerSwipe >= 0 && allocsPerSwipe > mMaxAllocsPerSwipe) {
+            Log.e(TAG, "FAIL: " + allocsPerSwipe + " allocs/swipe exceeds " + mMaxAllocsPerSwipe);
+            passed = false;
+        }
+        if (passed) {
+            Log.i(TAG, "PASS");
+        }
+        setResult(passed ? RESULT_OK : RESULT_CANCELED);
+        finish();
+    }
+}
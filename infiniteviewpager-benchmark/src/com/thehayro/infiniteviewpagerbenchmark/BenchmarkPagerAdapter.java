@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2013 Onur-Hayri Bakici
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.thehayro.infiniteviewpagerbenchmark;
+
+import com.thehayro.view.IntInfinitePagerAdapter;
+
+import android.content.Context;
+import android.view.ViewGroup;
+import android.widget.LinearLayout;
+import android.widget.TextView;
+
+/**
+ * Pages of nested layouts, the first child of each page is a label showing its indicator.
+ */
+class BenchmarkPagerAdapter extends IntInfinitePagerAdapter {
+
+    private final Context mContext;
+
+    private final int mDepth;
+
+    private final int mWidth;
+
+    /**
+     *
+     * @param context the context of the pages.
+     * @param initValue the initial indicator.
+     * @param offscreenPageLimit the number of pages to each side of the current page.
+     * @param depth the nesting depth of the view hierarchy of each page.
+     * @param width the number of children of each nested layout.
+     */
+    BenchmarkPagerAdapter(final Context context, final int initValue, final int offscreenPageLimit,
+                          final int depth, final int width) {
+        super(initValue, offscreenPageLimit);
+        mContext = context;
+        mDepth = depth;
+        mWidth = width;
+    }
+
+    @Override
+    public int getIndicatorAt(final int base, final int offset) {
+        return base + offset;
+    }
+
+    @Override
+    public ViewGroup instantiateItem(final int indicator) {
+        final LinearLayout layout = new LinearLayout(mContext);
+        layout.setOrientation(LinearLayout.VERTICAL);
+        final TextView label = new TextView(mContext);
+        label.setText(String.valueOf(indicator));
+        layout.addView(label);
+        addChildren(layout, mDepth);
+        return layout;
+    }
+
+    @Override
+    public void bindItem(final ViewGroup recycled, final int indicator) {
+        ((TextView) recycled.getChildAt(0)).setText(String.valueOf(indicator));
+    }
+
+    private void addChildren(final LinearLayout parent, final int depth) {
+        for (int i = 0; i < mWidth; i++) {
+            if (depth <= 1) {
+                final TextView leaf = new TextView(mContext);
+                leaf.setText("leaf");
+                parent.addView(leaf);
+            } else {
+                final LinearLayout child = new LinearLayout(mContext);
+                child.setOrientation(depth % 2 == 0 ? LinearLayout.HORIZONTAL : LinearLayout.VERTICAL);
+                addChildren(child, depth - 1);
+                parent.addView(child);
+            }
+        }
+    }
+}
@@ -0,0 +1,330 @@
+/*
+ * Copyright (C) 2013 Onur-Hayri Bakici
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.thehayro.infiniteviewpagerbenchmark;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.thehayro.view.InfiniteViewPager;
+import com.thehayro.view.PagerMetrics;
+import com.thehayro.view.SimplePagerMetrics;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import android.app.Activity;
+import android.support.v4.view.PagerAdapter;
+import android.support.v4.view.ViewPager;
+import android.view.View;
+import android.view.ViewGroup;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Swipes an {@link InfiniteViewPager} page by page through fake drags that settle on the next page, and fails
+ * if the average time or allocated bytes per swipe exceed those of a plain {@link ViewPager} showing the same
+ * pages by more than a factor. The plain ViewPager is measured in the same run, so the limits hold on any
+ * machine. The page layout, the number of swipes and the factors are read from the {@code benchmark.*} system
+ * properties set in the pom, e.g.
+ * <pre>
+ * mvn test -Pbenchmark -Dbenchmark.depth=5 -Dbenchmark.maxTimeRatio=1.5
+ * </pre>
+ * A factor of {@code 0} disables its check, as does the default fill p99 limit.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, emulateSdk = 18)
+public class SwipeBenchmarkTest {
+
+    private static final int WIDTH_PIXELS = 480;
+
+    private static final int HEIGHT_PIXELS = 800;
+
+    private static final long FRAME_MILLIS = 16;
+
+    private static final int DRAG_FRAMES = 6;
+
+    /**
+     * The fraction of the page width dragged, beyond the half that settles on the next page.
+     */
+    private static final float DRAG_FRACTION = 0.6f;
+
+    private static final int MAX_SETTLE_FRAMES = 200;
+
+    /**
+     * The number of pages of the plain ViewPager, it starts in the middle.
+     */
+    private static final int BASELINE_PAGE_COUNT = 1 << 20;
+
+    private int mDepth;
+
+    private int mWidth;
+
+    private int mSwipes;
+
+    private int mWarmup;
+
+    private double mMaxTimeRatio;
+
+    private double mMaxBytesRatio;
+
+    private long mMaxFillP99Micros;
+
+    private Activity mActivity;
+
+    private ViewPager mViewPager;
+
+    private SimplePagerMetrics mMetrics;
+
+    private int mScrollState = ViewPager.SCROLL_STATE_IDLE;
+
+    private int mSelectedIndicator;
+
+    @Before
+    public void setUp() {
+        mDepth = Integer.getInteger("benchmark.depth", 3);
+        mWidth = Integer.getInteger("benchmark.width", 3);
+        mSwipes = Integer.getInteger("benchmark.swipes", 2000);
+        mWarmup = Integer.getInteger("benchmark.warmup", 200);
+        mMaxTimeRatio = Double.parseDouble(System.getProperty("benchmark.maxTimeRatio", "0"));
+        mMaxBytesRatio = Double.parseDouble(System.getProperty("benchmark.maxBytesRatio", "0"));
+        mMaxFillP99Micros = Long.getLong("benchmark.maxFillP99Micros", 0);
+        mActivity = Robolectric.buildActivity(Activity.class).create().start().resume().get();
+    }
+
+    @Test
+    public void swipes() {
+        runBenchmark("swipes", false, false);
+    }
+
+    @Test
+    public void recycledSwipes() {
+        runBenchmark("recycled swipes", true, false);
+    }
+
+    @Test
+    public void rotatedSwipes() {
+        runBenchmark("rotated swipes", false, true);
+    }
+
+    private void runBenchmark(final String name, final boolean recycling, final boolean rotation) {
+        setUpBaselinePager();
+        final Measurement baseline = measure();
+
+        setUpPager(recycling, rotation);
+        mMetrics.reset();
+        final Measurement measurement = measure();
+        final long fillP50 = mMetrics.getPercentileMicros(PagerMetrics.OPERATION_FILL, 50f);
+        final long fillP99 = mMetrics.getPercentileMicros(PagerMetrics.OPERATION_FILL, 99f);
+
+        System.out.println(name + ": swipes=" + mSwipes + " depth=" + mDepth + " width=" + mWidth
+            + " nanos/swipe=" + measurement.mNanosPerSwipe + " (baseline " + baseline.mNanosPerSwipe + ")"
+            + " bytes/swipe=" + measurement.mBytesPerSwipe + " (baseline " + baseline.mBytesPerSwipe + ")"
+            + " fill p50=" + fillP50 + "us p99=" + fillP99 + "us");
+        System.out.println(name + ": " + mMetrics);
+
+        if (mMaxTimeRatio > 0) {
+            assertTrue(name + ": " + measurement.mNanosPerSwipe + " nanos/swipe exceeds " + mMaxTimeRatio
+                + " times the baseline of " + baseline.mNanosPerSwipe,
+                measurement.mNanosPerSwipe <= baseline.mNanosPerSwipe * mMaxTimeRatio);
+        }
+        if (mMaxBytesRatio > 0 && measurement.mBytesPerSwipe >= 0) {
+            assertTrue(name + ": " + measurement.mBytesPerSwipe + " bytes/swipe exceeds " + mMaxBytesRatio
+                + " times the baseline of " + baseline.mBytesPerSwipe,
+                measurement.mBytesPerSwipe <= baseline.mBytesPerSwipe * mMaxBytesRatio);
+        }
+        if (mMaxFillP99Micros > 0) {
+            assertTrue(name + ": fill p99 of " + fillP99 + "us exceeds " + mMaxFillP99Micros + "us",
+                fillP99 <= mMaxFillP99Micros);
+        }
+    }
+
+    private void setUpPager(final boolean recycling, final boolean rotation) {
+        final BenchmarkPagerAdapter adapter = new BenchmarkPagerAdapter(mActivity, 0, 1, mDepth, mWidth);
+        adapter.setRecyclingEnabled(recycling);
+        adapter.setPageRotationEnabled(rotation);
+        mMetrics = new SimplePagerMetrics();
+        adapter.setPagerMetrics(mMetrics);
+
+        final InfiniteViewPager viewPager = new InfiniteViewPager(mActivity);
+        viewPager.setAdapter(adapter);
+        viewPager.addOnIntInfinitePageChangeListener(new InfiniteViewPager.OnIntInfinitePageChangeListener() {
+            @Override
+            public void onPageScrolled(final int indicator, final float positionOffset,
+                                       final int positionOffsetPixels) {
+            }
+
+            @Override
+            public void onPageSelected(final int indicator) {
+                mSelectedIndicator = indicator;
+            }
+
+            @Override
+            public void onPageScrollStateChanged(final int state) {
+                mScrollState = state;
+            }
+        }, InfiniteViewPager.EVENT_PAGE_SELECTED | InfiniteViewPager.EVENT_PAGE_SCROLL_STATE_CHANGED);
+        attach(viewPager);
+    }
+
+    /**
+     * Sets up a plain ViewPager that instantiates the same pages for every position and destroys them once
+     * they leave the offscreen pages.
+     */
+    private void setUpBaselinePager() {
+        final BenchmarkPagerAdapter pages = new BenchmarkPagerAdapter(mActivity, 0, 1, mDepth, mWidth);
+        final ViewPager viewPager = new ViewPager(mActivity);
+        viewPager.setAdapter(new PagerAdapter() {
+            @Override
+            public int getCount() {
+                return BASELINE_PAGE_COUNT;
+            }
+
+            @Override
+            public Object instantiateItem(final ViewGroup container, final int position) {
+                final ViewGroup page = pages.instantiateItem(position);
+                container.addView(page);
+                return page;
+            }
+
+            @Override
+            public void destroyItem(final ViewGroup container, final int position, final Object object) {
+                container.removeView((View) object);
+            }
+
+            @Override
+            public boolean isViewFromObject(final View view, final Object object) {
+                return view == object;
+            }
+        });
+        viewPager.setOnPageChangeListener(new ViewPager.OnPageChangeListener() {
+            @Override
+            public void onPageScrolled(final int position, final float positionOffset,
+                                       final int positionOffsetPixels) {
+            }
+
+            @Override
+            public void onPageSelected(final int position) {
+                mSelectedIndicator = position;
+            }
+
+            @Override
+            public void onPageScrollStateChanged(final int state) {
+                mScrollState = state;
+            }
+        });
+        mSelectedIndicator = BASELINE_PAGE_COUNT / 2;
+        viewPager.setCurrentItem(mSelectedIndicator, false);
+        attach(viewPager);
+    }
+
+    private void attach(final ViewPager viewPager) {
+        mViewPager = viewPager;
+        mScrollState = ViewPager.SCROLL_STATE_IDLE;
+        mActivity.setContentView(viewPager);
+        layout();
+        Robolectric.runUiThreadTasksIncludingDelayedTasks();
+    }
+
+    /**
+     * Swipes the warm up swipes, then measures the swipes.
+     */
+    private Measurement measure() {
+        for (int i = 0; i < mWarmup; i++) {
+            swipe();
+        }
+        final com.sun.management.ThreadMXBean threads = getThreadMXBean();
+        final long threadId = Thread.currentThread().getId();
+        final long bytesBefore = threads != null ? threads.getThreadAllocatedBytes(threadId) : 0;
+        final long start = System.nanoTime();
+        for (int i = 0; i < mSwipes; i++) {
+            swipe();
+        }
+        final long nanosPerSwipe = (System.nanoTime() - start) / Math.max(1, mSwipes);
+        final long bytesPerSwipe = threads != null
+            ? (threads.getThreadAllocatedBytes(threadId) - bytesBefore) / Math.max(1, mSwipes) : -1;
+        return new Measurement(nanosPerSwipe, bytesPerSwipe);
+    }
+
+    /**
+     * Drags the pager towards the next page, releases it and runs the frames until the scroll is idle and the
+     * pages are shifted and laid out again.
+     */
+    private void swipe() {
+        final int indicator = mSelectedIndicator;
+        assertTrue(mViewPager.beginFakeDrag());
+        assertEquals(ViewPager.SCROLL_STATE_DRAGGING, mScrollState);
+        final float step = WIDTH_PIXELS * DRAG_FRACTION / DRAG_FRAMES;
+        for (int i = 0; i < DRAG_FRAMES; i++) {
+            Robolectric.getUiThreadScheduler().advanceBy(FRAME_MILLIS);
+            mViewPager.fakeDragBy(-step);
+        }
+        mViewPager.endFakeDrag();
+
+        int frames = 0;
+        while (mScrollState != ViewPager.SCROLL_STATE_IDLE) {
+            assertTrue("the swipe did not settle within " + MAX_SETTLE_FRAMES + " frames",
+                ++frames <= MAX_SETTLE_FRAMES);
+            Robolectric.getUiThreadScheduler().advanceBy(FRAME_MILLIS);
+            mViewPager.computeScroll();
+        }
+        // the deferred fills and the layout of the re-centered pages
+        Robolectric.runUiThreadTasksIncludingDelayedTasks();
+        layout();
+        assertEquals("the swipe did not select the next page", indicator + 1, mSelectedIndicator);
+    }
+
+    private void layout() {
+        mViewPager.measure(View.MeasureSpec.makeMeasureSpec(WIDTH_PIXELS, View.MeasureSpec.EXACTLY),
+            View.MeasureSpec.makeMeasureSpec(HEIGHT_PIXELS, View.MeasureSpec.EXACTLY));
+        mViewPager.layout(0, 0, WIDTH_PIXELS, HEIGHT_PIXELS);
+    }
+
+    private static com.sun.management.ThreadMXBean getThreadMXBean() {
+        final java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (!(threads instanceof com.sun.management.ThreadMXBean)) {
+            return null;
+        }
+        final com.sun.management.ThreadMXBean sunThreads = (com.sun.management.ThreadMXBean) threads;
+        if (!sunThreads.isThreadAllocatedMemorySupported()) {
+            return null;
+        }
+        sunThreads.setThreadAllocatedMemoryEnabled(true);
+        return sunThreads;
+    }
+
+    /**
+     * The average cost of a swipe.
+     */
+    private static final class Measurement {
+
+        private final long mNanosPerSwipe;
+
+        /**
+         * The allocated bytes or {@code -1} if the JVM cannot measure them.
+         */
+        private final long mBytesPerSwipe;
+
+        Measurement(final long nanosPerSwipe, final long bytesPerSwipe) {
+            mNanosPerSwipe = nanosPerSwipe;
+            mBytesPerSwipe = bytesPerSwipe;
+        }
+    }
+}
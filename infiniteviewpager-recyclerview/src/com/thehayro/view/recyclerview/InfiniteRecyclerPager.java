@@ -0,0 +1,335 @@
+/*
+ * Copyright (C) 2013 Onur-Hayri Bakici
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.thehayro.view.recyclerview;
+
+import static com.thehayro.internal.Constants.ADAPTER_STATE;
+import static com.thehayro.internal.Constants.ADAPTER_STATE_BINARY;
+import static com.thehayro.internal.Constants.SUPER_STATE;
+
+import com.thehayro.view.InfinitePagerAdapter;
+import com.thehayro.view.InfinitePagerHost;
+import com.thehayro.view.InfiniteViewPager;
+import com.thehayro.view.InfiniteViewPager.OnInfinitePageChangeListener;
+import com.thehayro.view.InfiniteViewPager.OnIntInfinitePageChangeListener;
+import com.thehayro.view.InfiniteViewPager.OnLongInfinitePageChangeListener;
+
+import android.content.Context;
+import android.os.Bundle;
+import android.os.Parcel;
+import android.os.Parcelable;
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.PagerSnapHelper;
+import android.support.v7.widget.RecyclerView;
+import android.util.AttributeSet;
+import android.view.View;
+
+/**
+ * Alternative to {@link InfiniteViewPager} built on a RecyclerView. It takes the same
+ * {@link InfinitePagerAdapter}, but maps its indicators onto a large virtual position range instead of
+ * re-centering three pages after every page change. Pages are recycled through the RecyclerView's view pool
+ * (see {@link InfinitePagerAdapter#setRecyclingEnabled(boolean)}) and prefetched by its idle time prefetch.
+ * <p>
+ * Bounds ({@link InfinitePagerAdapter#hasNextIndicator(Object)}) stop the scroll at the last page and the page
+ * visibility callbacks are dispatched like on the {@link InfiniteViewPager}. Deferred content filling is not
+ * supported by this pager, the content of a page is filled when it is bound.
+ */
+public class InfiniteRecyclerPager extends RecyclerView {
+
+    private final LinearLayoutManager mLayoutManager;
+    private final PagerSnapHelper mSnapHelper = new PagerSnapHelper();
+    private final InfinitePagerHost mHost = new InfinitePagerHost();
+    private RecyclerPagerAdapter mPagerAdapter;
+    private int mCurrPosition = NO_POSITION;
+
+    public InfiniteRecyclerPager(final Context context) {
+        this(context, null);
+    }
+
+    public InfiniteRecyclerPager(final Context context, final AttributeSet attrs) {
+        super(context, attrs);
+        mLayoutManager = new BoundedLayoutManager(context);
+        setLayoutManager(mLayoutManager);
+        setHasFixedSize(true);
+        mSnapHelper.attachToRecyclerView(this);
+    }
+
+    /**
+     * Sets the adapter providing the pages. The pager starts with the current indicator of the adapter.
+     * @param adapter the adapter.
+     * @throws IllegalStateException if the adapter cannot look up indicators apart from the current one, see
+     * {@link InfinitePagerAdapter#getNextIndicator(Object)}.
+     */
+    public void setInfinitePagerAdapter(final InfinitePagerAdapter adapter) {
+        mHost.setAdapter(adapter, "InfiniteRecyclerPager");
+        mPagerAdapter = adapter != null ? new RecyclerPagerAdapter(mHost) : null;
+        setAdapter(mPagerAdapter);
+        if (mPagerAdapter != null) {
+            mCurrPosition = RecyclerPagerAdapter.START_POSITION;
+            scrollToPosition(mCurrPosition);
+        } else {
+            mCurrPosition = NO_POSITION;
+        }
+    }
+
+    public InfinitePagerAdapter getInfinitePagerAdapter() {
+        return mHost.getAdapter();
+    }
+
+    /**
+     * Sets the current indicator without scrolling.
+     * @param indicator the new indicator to set.
+     */
+    public final void setCurrentIndicator(final Object indicator) {
+        setCurrentIndicator(indicator, false);
+    }
+
+    /**
+     * Sets the current indicator. An indicator of an attached page or of a direct neighbor of the current
+     * page is scrolled to, any other indicator rebinds all pages.
+     * @param indicator the new indicator to set.
+     * @param smoothScroll {@code true} to scroll smoothly to a nearby indicator.
+     */
+    public final void setCurrentIndicator(final Object indicator, final boolean smoothScroll) {
+        final RecyclerPagerAdapter pagerAdapter = mPagerAdapter;
+        if (pagerAdapter == null) {
+            return;
+        }
+        final Object currentIndicator = mHost.getCurrentIndicator();
+        if (currentIndicator.getClass() != indicator.getClass() || currentIndicator.equals(indicator)) {
+            return;
+        }
+        final int position = findPosition(indicator);
+        if (position != NO_POSITION) {
+            if (smoothScroll) {
+                // the page is selected once the scroll is idle
+                smoothScrollToPosition(position);
+            } else {
+                scrollToPosition(position);
+                selectPosition(position);
+            }
+            return;
+        }
+        pagerAdapter.reset(indicator);
+        scrollToPosition(RecyclerPagerAdapter.START_POSITION);
+        selectPosition(RecyclerPagerAdapter.START_POSITION);
+    }
+
+    /**
+     * Looks up the position of {@code indicator} among the attached pages, which were bound already, and the
+     * direct neighbors of the current page, which are a single step away.
+     * @param indicator the indicator to look up.
+     * @return the position of {@code indicator} or {@link #NO_POSITION} if it is further away.
+     */
+    private int findPosition(final Object indicator) {
+        for (int i = 0; i < getChildCount(); i++) {
+            final RecyclerPagerAdapter.PageHolder holder =
+                (RecyclerPagerAdapter.PageHolder) getChildViewHolder(getChildAt(i));
+            final int position = holder.getAdapterPosition();
+            if (position != NO_POSITION && indicator.equals(holder.getIndicator())) {
+                return position;
+            }
+        }
+        for (int direction = -1; direction <= 1; direction += 2) {
+            final int position = mCurrPosition + direction;
+            if (indicator.equals(mPagerAdapter.getIndicator(position))) {
+                return position;
+            }
+        }
+        return NO_POSITION;
+    }
+
+    @Override
+    public void onScrolled(final int dx, final int dy) {
+        super.onScrolled(dx, dy);
+        if (mPagerAdapter == null) {
+            return;
+        }
+        final int first = mLayoutManager.findFirstVisibleItemPosition();
+        final View page = mLayoutManager.findViewByPosition(first);
+        final int width = getWidth() - getPaddingLeft() - getPaddingRight();
+        if (page == null || width <= 0) {
+            return;
+        }
+        final int offsetPixels = getPaddingLeft() - page.getLeft();
+        final float positionOffset = offsetPixels / (float) width;
+        final RecyclerPagerAdapter.PageHolder left = (RecyclerPagerAdapter.PageHolder) getChildViewHolder(page);
+        final View rightPage = offsetPixels > 0 ? mLayoutManager.findViewByPosition(first + 1) : null;
+        final RecyclerPagerAdapter.PageHolder right = rightPage != null
+            ? (RecyclerPagerAdapter.PageHolder) getChildViewHolder(rightPage) : null;
+        mHost.updatePageVisibility(left.getIndicator(), left.getPage(), right != null ? right.getIndicator() : null,
+            right != null ? right.getPage() : null, positionOffset);
+        mHost.dispatchPageScrolled(positionOffset, offsetPixels);
+    }
+
+    @Override
+    public void onScrollStateChanged(final int state) {
+        super.onScrollStateChanged(state);
+        if (mPagerAdapter == null) {
+            return;
+        }
+        if (state == SCROLL_STATE_IDLE) {
+            final View page = mSnapHelper.findSnapView(mLayoutManager);
+            final int position = page != null ? getChildAdapterPosition(page) : NO_POSITION;
+            if (position != NO_POSITION && position != mCurrPosition) {
+                selectPosition(position);
+            }
+        }
+        // the scroll states have the same values as the ones of the ViewPager
+        mHost.dispatchPageScrollStateChanged(state);
+    }
+
+    private void selectPosition(final int position) {
+        final Object indicator = mPagerAdapter.getIndicator(position);
+        if (indicator == null) {
+            // the empty page beyond the bounds is never selected
+            return;
+        }
+        mCurrPosition = position;
+        mHost.selectIndicator(indicator);
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        for (int i = 0; i < getChildCount(); i++) {
+            final RecyclerPagerAdapter.PageHolder holder =
+                (RecyclerPagerAdapter.PageHolder) getChildViewHolder(getChildAt(i));
+            if (holder.getIndicator() != null) {
+                mHost.hidePage(holder.getIndicator(), holder.getPage());
+            }
+        }
+        mHost.hideAllPages();
+        super.onDetachedFromWindow();
+    }
+
+    @Override
+    public Parcelable onSaveInstanceState() {
+        final Parcelable superState = super.onSaveInstanceState();
+        final InfinitePagerAdapter adapter = mHost.getAdapter();
+        if (adapter == null) {
+            return superState;
+        }
+        final Bundle bundle = new Bundle();
+        bundle.putParcelable(SUPER_STATE, superState);
+        final Parcel parcel = Parcel.obtain();
+        try {
+            if (adapter.writeIndicator(mHost.getCurrentIndicator(), parcel)) {
+                bundle.putByteArray(ADAPTER_STATE_BINARY, parcel.marshall());
+            } else {
+                bundle.putString(ADAPTER_STATE, adapter.getStringRepresentation(mHost.getCurrentIndicator()));
+            }
+        } finally {
+            parcel.recycle();
+        }
+        return bundle;
+    }
+
+    @Override
+    public void onRestoreInstanceState(final Parcelable state) {
+        if (!(state instanceof Bundle)) {
+            super.onRestoreInstanceState(state);
+            return;
+        }
+        final Bundle bundle = (Bundle) state;
+        bundle.setClassLoader(getClass().getClassLoader());
+        super.onRestoreInstanceState(bundle.getParcelable(SUPER_STATE));
+        final InfinitePagerAdapter adapter = mHost.getAdapter();
+        if (adapter == null) {
+            return;
+        }
+        final Object indicator;
+        final byte[] binary = bundle.getByteArray(ADAPTER_STATE_BINARY);
+        if (binary != null) {
+            final Parcel parcel = Parcel.obtain();
+            try {
+                parcel.unmarshall(binary, 0, binary.length);
+                parcel.setDataPosition(0);
+                indicator = adapter.readIndicator(parcel);
+            } finally {
+                parcel.recycle();
+            }
+        } else {
+            indicator = adapter.convertToIndicator(bundle.getString(ADAPTER_STATE));
+        }
+        // the restored scroll position refers to the old positions, the indicator starts over
+        mPagerAdapter.reset(indicator);
+        scrollToPosition(RecyclerPagerAdapter.START_POSITION);
+        selectPosition(RecyclerPagerAdapter.START_POSITION);
+    }
+
+    /**
+     * Adds a listener for the page change {@code events}.
+     * @param listener the listener.
+     * @param events the {@code InfiniteViewPager.EVENT_*} flags of the events to listen to.
+     */
+    public <T> void addOnInfinitePageChangeListener(OnInfinitePageChangeListener<T> listener, int events) {
+        mHost.addListener(listener, events);
+    }
+
+    public void addOnIntInfinitePageChangeListener(OnIntInfinitePageChangeListener listener, int events) {
+        mHost.addListener(listener, events);
+    }
+
+    public void addOnLongInfinitePageChangeListener(OnLongInfinitePageChangeListener listener, int events) {
+        mHost.addListener(listener, events);
+    }
+
+    public void removeOnInfinitePageChangeListener(OnInfinitePageChangeListener<?> listener) {
+        mHost.removeListener(listener);
+    }
+
+    public void removeOnIntInfinitePageChangeListener(OnIntInfinitePageChangeListener listener) {
+        mHost.removeListener(listener);
+    }
+
+    public void removeOnLongInfinitePageChangeListener(OnLongInfinitePageChangeListener listener) {
+        mHost.removeListener(listener);
+    }
+
+    /**
+     * Stops the scroll once the page without a next or previous indicator is aligned with the pager, so the
+     * empty pages beyond the bounds never come on screen.
+     */
+    private final class BoundedLayoutManager extends LinearLayoutManager {
+
+        BoundedLayoutManager(final Context context) {
+            super(context, HORIZONTAL, false);
+        }
+
+        @Override
+        public int scrollHorizontallyBy(final int dx, final Recycler recycler, final State state) {
+            return super.scrollHorizontallyBy(clampScroll(dx), recycler, state);
+        }
+
+        private int clampScroll(final int dx) {
+            if (dx == 0 || mHost.getAdapter() == null) {
+                return dx;
+            }
+            final int direction = dx > 0 ? 1 : -1;
+            for (int i = 0; i < getChildCount(); i++) {
+                final View child = getChildAt(i);
+                final Object indicator = ((RecyclerPagerAdapter.PageHolder) getChildViewHolder(child)).getIndicator();
+                if (indicator == null || mHost.hasIndicator(indicator, direction)) {
+                    continue;
+                }
+                // the distance the bounding page can still scroll until it is aligned
+                final int distance = child.getLeft() - getPaddingLeft();
+                return direction > 0 ? Math.min(dx, Math.max(0, distance)) : Math.max(dx, Math.min(0, distance));
+            }
+            return dx;
+        }
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright (C) 2013 Onur-Hayri Bakici
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.thehayro.view.recyclerview;
+
+import com.thehayro.view.InfinitePagerAdapter;
+import com.thehayro.view.InfinitePagerHost;
+
+import android.support.v7.widget.RecyclerView;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+
+/**
+ * Maps a large virtual position range of a RecyclerView onto the indicators of an
+ * {@link InfinitePagerAdapter}. The position {@link #START_POSITION} shows the initial indicator, every other
+ * position the indicator that many pages away from it. Positions beyond the bounds of the adapter show an
+ * empty page.
+ */
+@SuppressWarnings("unchecked")
+final class RecyclerPagerAdapter extends RecyclerView.Adapter<RecyclerPagerAdapter.PageHolder> {
+
+    /**
+     * The position of the initial indicator, far enough from both ends to never reach them by scrolling.
+     */
+    static final int START_POSITION = Integer.MAX_VALUE / 2;
+
+    /**
+     * The view type of the empty pages beyond the bounds, so they do not take the views of real pages.
+     */
+    private static final int VIEW_TYPE_UNREACHABLE = Integer.MIN_VALUE;
+
+    private final InfinitePagerHost mHost;
+
+    /**
+     * The last looked up position that can be reached and its indicator. Positions are looked up relative to
+     * it, so only a few steps are needed.
+     */
+    private int mAnchorPosition;
+
+    private Object mAnchorIndicator;
+
+    RecyclerPagerAdapter(final InfinitePagerHost host) {
+        mHost = host;
+        mAnchorPosition = START_POSITION;
+        mAnchorIndicator = host.getCurrentIndicator();
+    }
+
+    InfinitePagerAdapter getInfinitePagerAdapter() {
+        return mHost.getAdapter();
+    }
+
+    /**
+     * Lets {@link #START_POSITION} show {@code indicator} and rebinds all pages.
+     * @param indicator the indicator of the start position.
+     */
+    void reset(final Object indicator) {
+        mAnchorPosition = START_POSITION;
+        mAnchorIndicator = indicator;
+        notifyDataSetChanged();
+    }
+
+    /**
+     *
+     * @param position a virtual position.
+     * @return the indicator shown on {@code position} or {@code null} if the position is beyond the bounds of
+     * the adapter.
+     */
+    Object getIndicator(final int position) {
+        if (position == mAnchorPosition) {
+            return mAnchorIndicator;
+        }
+        final int direction = position > mAnchorPosition ? 1 : -1;
+        Object indicator = mAnchorIndicator;
+        // stepped one page at a time, the bounds are checked on every page
+        for (int i = mAnchorPosition; i != position; i += direction) {
+            if (!mHost.hasIndicator(indicator, direction)) {
+                return null;
+            }
+            indicator = mHost.getAdapter().getIndicatorAt(indicator, direction);
+        }
+        mAnchorPosition = position;
+        mAnchorIndicator = indicator;
+        return indicator;
+    }
+
+    @Override
+    public int getItemCount() {
+        return Integer.MAX_VALUE;
+    }
+
+    @Override
+    public int getItemViewType(final int position) {
+        final Object indicator = getIndicator(position);
+        return indicator != null ? mHost.getAdapter().getItemViewType(indicator) : VIEW_TYPE_UNREACHABLE;
+    }
+
+    @Override
+    public PageHolder onCreateViewHolder(final ViewGroup parent, final int viewType) {
+        final FrameLayout container = new FrameLayout(parent.getContext());
+        container.setLayoutParams(new RecyclerView.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT,
+            ViewGroup.LayoutParams.MATCH_PARENT));
+        return new PageHolder(container);
+    }
+
+    @Override
+    public void onBindViewHolder(final PageHolder holder, final int position) {
+        final Object indicator = getIndicator(position);
+        hidePage(holder);
+        holder.mIndicator = indicator;
+        if (indicator == null) {
+            holder.setPage(null);
+            return;
+        }
+        final InfinitePagerAdapter adapter = mHost.getAdapter();
+        if (holder.mPage != null && adapter.isRecyclingEnabled()) {
+            // the holders are pooled by view type, so the page has the right layout
+            adapter.bindItem(holder.mPage, indicator);
+        } else {
+            holder.setPage(adapter.instantiateItem(indicator));
+        }
+        adapter.fillContent(holder.mPage, indicator);
+    }
+
+    @Override
+    public void onViewRecycled(final PageHolder holder) {
+        hidePage(holder);
+        holder.mIndicator = null;
+    }
+
+    /**
+     * Hides the page of {@code holder} before its view shows another indicator.
+     */
+    private void hidePage(final PageHolder holder) {
+        if (holder.mIndicator != null) {
+            mHost.hidePage(holder.mIndicator, holder.mPage);
+        }
+    }
+
+    /**
+     * Holds a page built by the {@link InfinitePagerAdapter} in a full size container.
+     */
+    static final class PageHolder extends RecyclerView.ViewHolder {
+
+        private ViewGroup mPage;
+
+        private Object mIndicator;
+
+        PageHolder(final FrameLayout container) {
+            super(container);
+        }
+
+        /**
+         *
+         * @return the page view or {@code null} if the position is beyond the bounds.
+         */
+        ViewGroup getPage() {
+            return mPage;
+        }
+
+        /**
+         *
+         * @return the indicator the page is bound to or {@code null} if the position is beyond the bounds.
+         */
+        Object getIndicator() {
+            return mIndicator;
+        }
+
+        private void setPage(final ViewGroup page) {
+            final FrameLayout container = (FrameLayout) itemView;
+            container.removeAllViews();
+            if (page != null) {
+                container.addView(page, new FrameLayout.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT,
+                    ViewGroup.LayoutParams.MATCH_PARENT));
+            }
+            mPage = page;
+        }
+    }
+}
@@ -16,8 +16,8 @@
 
 package com.thehayro.infiniteviewpagersample;
 
-import com.thehayro.view.InfinitePagerAdapter;
 import com.thehayro.view.InfiniteViewPager;
+import com.thehayro.view.IntInfinitePagerAdapter;
 
 import android.app.Activity;
 import android.os.Bundle;
@@ -39,18 +39,20 @@ public class MyActivity extends Activity {
         setContentView(R.layout.main);
 
         final InfiniteViewPager viewPager = (InfiniteViewPager) findViewById(R.id.infinite_viewpager);
-        viewPager.setAdapter(new MyInfinitePagerAdapter(0));
+        final MyInfinitePagerAdapter adapter = new MyInfinitePagerAdapter(0);
+        adapter.setRecyclingEnabled(true);
+        viewPager.setAdapter(adapter);
         viewPager.setPageMargin(20);
-        viewPager.setOnInfinitePageChangeListener(new InfiniteViewPager.OnInfinitePageChangeListener() {
+        viewPager.setOnIntInfinitePageChangeListener(new InfiniteViewPager.OnIntInfinitePageChangeListener() {
             @Override
-            public void onPageScrolled(final Object indicator, final float positionOffset,
+            public void onPageScrolled(final int indicator, final float positionOffset,
                                        final int positionOffsetPixels) {
                 Log.d("InfiniteViewPager", "onPageScrolled ".concat(String.valueOf(indicator)));
             }
 
             @Override
-            public void onPageSelected(final Object indicator) {
-                Log.d("InfiniteViewPager", "onPageSelected " + indicator.toString());
+            public void onPageSelected(final int indicator) {
+                Log.d("InfiniteViewPager", "onPageSelected " + indicator);
             }
 
             @Override
@@ -68,19 +70,24 @@ public class MyActivity extends Activity {
         });
     }
 
-    private class MyInfinitePagerAdapter extends InfinitePagerAdapter<Integer> {
+    private class MyInfinitePagerAdapter extends IntInfinitePagerAdapter {
 
         /**
          * Standard constructor.
          *
          * @param initValue the initial indicator value the ViewPager should start with.
          */
-        public MyInfinitePagerAdapter(final Integer initValue) {
+        public MyInfinitePagerAdapter(final int initValue) {
             super(initValue);
         }
 
         @Override
-        public ViewGroup instantiateItem(Integer indicator) {
+        public int getIndicatorAt(final int base, final int offset) {
+            return base + offset;
+        }
+
+        @Override
+        public ViewGroup instantiateItem(int indicator) {
             Log.d("InfiniteViewPager", "instantiating page " + indicator);
             final LinearLayout layout = (LinearLayout) ((LayoutInflater) getSystemService(LAYOUT_INFLATER_SERVICE))
                 .inflate(R
@@ -94,23 +101,11 @@ public class MyActivity extends Activity {
         }
 
         @Override
-        public Integer getNextIndicator() {
-            return getCurrentIndicator() + 1;
-        }
-
-        @Override
-        public Integer getPreviousIndicator() {
-            return getCurrentIndicator() - 1;
-        }
-
-        @Override
-        public String getStringRepresentation(final Integer currentIndicator) {
-            return String.valueOf(currentIndicator);
-        }
-
-        @Override
-        public Integer convertToIndicator(final String representation) {
-            return Integer.valueOf(representation);
+        public void bindItem(final ViewGroup recycled, final int indicator) {
+            Log.d("InfiniteViewPager", "binding page " + indicator);
+            final TextView text = (TextView) recycled.findViewById(R.id.moving_view_x);
+            text.setText(String.format("Page %s", indicator));
+            recycled.setTag(indicator);
         }
     }
 }
@@ -24,14 +24,17 @@ public final class Constants {
 
     public static boolean DEBUG = false;
 
-    public static final int PAGE_POSITION_LEFT = 0;
-    public static final int PAGE_POSITION_CENTER = 1;
-    public static final int PAGE_POSITION_RIGHT = 2;
+    public static final int DEFAULT_OFFSCREEN_PAGE_LIMIT = 1;
 
-    public static final int PAGE_COUNT = 3;
+    /**
+     * The center position of the default window of {@code 2 * DEFAULT_OFFSCREEN_PAGE_LIMIT + 1} pages.
+     */
+    public static final int PAGE_POSITION_CENTER = DEFAULT_OFFSCREEN_PAGE_LIMIT;
 
     public static final String SUPER_STATE = "super_state";
     public static final String ADAPTER_STATE = "adapter_state";
+    public static final String ADAPTER_STATE_BINARY = "adapter_state_binary";
+    public static final String PAGE_STATE = "page_state_";
 
     public static final String LOG_TAG = "InfiniteViewPager";
 }
@@ -27,15 +27,32 @@ import java.util.List;
  * @param <T> the datatype of the {@link com.thehayro.view.InfinitePagerAdapter} indicator.
  */
 public final class PageModel<T> {
+
+    /**
+     * View type of a model that does not hold any page contents.
+     */
+    public static final int VIEW_TYPE_NONE = -1;
+
     private T mIndicator;
 
     private ViewGroup mParentView;
 
     private List<View> mChildren;
 
+    private int mViewType;
+
+    private boolean mPlaceholder;
+
+    private boolean mContentFilled;
+
     public PageModel(final ViewGroup parent, final T indicator) {
+        this(parent, indicator, VIEW_TYPE_NONE);
+    }
+
+    public PageModel(final ViewGroup parent, final T indicator, final int viewType) {
         mParentView = parent;
         mIndicator = indicator;
+        mViewType = viewType;
         final int size = parent.getChildCount();
         mChildren = new ArrayList<View>(size);
 
@@ -66,6 +83,34 @@ public final class PageModel<T> {
     public void removeAllChildren() {
         mParentView.removeAllViews();
         emptyChildren();
+        mContentFilled = false;
+    }
+
+    /**
+     * Exchanges the child views (and their view type and content state) of this model with the ones of {@code other}.
+     * Neither model allocates while doing so.
+     * @param other the model to exchange the children with.
+     */
+    public void swapChildren(final PageModel<?> other) {
+        mParentView.removeAllViews();
+        other.mParentView.removeAllViews();
+        for (int i = 0, size = mChildren.size(); i < size; i++) {
+            other.mParentView.addView(mChildren.get(i));
+        }
+        for (int i = 0, size = other.mChildren.size(); i < size; i++) {
+            mParentView.addView(other.mChildren.get(i));
+        }
+        final List<View> children = mChildren;
+        mChildren = other.mChildren;
+        other.mChildren = children;
+
+        final int viewType = mViewType;
+        mViewType = other.mViewType;
+        other.mViewType = viewType;
+
+        final boolean contentFilled = mContentFilled;
+        mContentFilled = other.mContentFilled;
+        other.mContentFilled = contentFilled;
     }
 
     public void addChild(final View child) {
@@ -92,4 +137,36 @@ public final class PageModel<T> {
     public void setIndicator(final T indicator) {
         mIndicator = indicator;
     }
+
+    public int getViewType() {
+        return mViewType;
+    }
+
+    public void setViewType(final int viewType) {
+        mViewType = viewType;
+    }
+
+    /**
+     *
+     * @return {@code true} if the model only holds the place of a page that cannot be reached.
+     */
+    public boolean isPlaceholder() {
+        return mPlaceholder;
+    }
+
+    public void setPlaceholder(final boolean placeholder) {
+        mPlaceholder = placeholder;
+    }
+
+    /**
+     *
+     * @return {@code true} if the content of the page has been filled in, not only its skeleton.
+     */
+    public boolean isContentFilled() {
+        return mContentFilled;
+    }
+
+    public void setContentFilled(final boolean contentFilled) {
+        mContentFilled = contentFilled;
+    }
 }
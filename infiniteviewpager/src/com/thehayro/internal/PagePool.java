@@ -0,0 +1,134 @@
+/*
+ * Copyright (C) 2013 Onur-Hayri Bakici
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.thehayro.internal;
+
+import android.util.SparseArray;
+import android.util.SparseIntArray;
+
+import java.util.ArrayList;
+
+/**
+ * Pool of detached pages, keyed by their view type.
+ */
+public class PagePool {
+
+    public static final int DEFAULT_MAX_SCRAP_PER_TYPE = 2;
+
+    private final SparseArray<ArrayList<PageModel<?>>> mScrap = new SparseArray<ArrayList<PageModel<?>>>();
+
+    private final SparseIntArray mMaxScrap = new SparseIntArray();
+
+    private final int mMaxScrapPerType;
+
+    private final int mMaxPages;
+
+    private int mSize;
+
+    public PagePool() {
+        this(DEFAULT_MAX_SCRAP_PER_TYPE);
+    }
+
+    public PagePool(final int maxScrapPerType) {
+        this(maxScrapPerType, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param maxScrapPerType the number of pages kept per view type, unless set otherwise by
+     *                        {@link #setMaxScrap(int, int)}.
+     * @param maxPages the number of pages kept over all view types.
+     */
+    public PagePool(final int maxScrapPerType, final int maxPages) {
+        mMaxScrapPerType = maxScrapPerType;
+        mMaxPages = maxPages;
+    }
+
+    /**
+     * Sets the number of pages kept for {@code viewType}. Surplus pages are dropped.
+     * @param viewType the view type.
+     * @param max the number of pages to keep.
+     */
+    public void setMaxScrap(final int viewType, final int max) {
+        mMaxScrap.put(viewType, max);
+        final ArrayList<PageModel<?>> scrap = mScrap.get(viewType);
+        while (scrap != null && scrap.size() > max) {
+            scrap.remove(scrap.size() - 1);
+            mSize--;
+        }
+    }
+
+    /**
+     * @param viewType the view type.
+     * @return the number of pages kept for {@code viewType}.
+     */
+    public int getMaxScrap(final int viewType) {
+        return mMaxScrap.get(viewType, mMaxScrapPerType);
+    }
+
+    /**
+     * @return the number of pooled pages over all view types.
+     */
+    public int size() {
+        return mSize;
+    }
+
+    /**
+     *
+     * @param viewType the view type of the requested page.
+     * @return a detached page of {@code viewType} or {@code null} if the pool has none.
+     */
+    public PageModel<?> acquire(final int viewType) {
+        final ArrayList<PageModel<?>> scrap = mScrap.get(viewType);
+        if (scrap == null || scrap.isEmpty()) {
+            return null;
+        }
+        mSize--;
+        return scrap.remove(scrap.size() - 1);
+    }
+
+    /**
+     * Puts a detached page back into the pool.
+     * @param page the page to pool.
+     * @return {@code true} if the page was pooled, {@code false} if it was dropped.
+     */
+    public boolean release(final PageModel<?> page) {
+        final int viewType = page.getViewType();
+        if (viewType == PageModel.VIEW_TYPE_NONE || !page.hasChildren()) {
+            return false;
+        }
+        final int maxScrap = getMaxScrap(viewType);
+        if (mSize >= mMaxPages || maxScrap <= 0) {
+            return false;
+        }
+        ArrayList<PageModel<?>> scrap = mScrap.get(viewType);
+        if (scrap == null) {
+            scrap = new ArrayList<PageModel<?>>(maxScrap);
+            mScrap.put(viewType, scrap);
+        }
+        if (scrap.size() >= maxScrap) {
+            return false;
+        }
+        page.setIndicator(null);
+        scrap.add(page);
+        mSize++;
+        return true;
+    }
+
+    public void clear() {
+        mScrap.clear();
+        mSize = 0;
+    }
+}
@@ -0,0 +1,238 @@
+/*
+ * Copyright (C) 2013 Onur-Hayri Bakici
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thehayro.view;
+
+import static com.thehayro.internal.Constants.DEFAULT_OFFSCREEN_PAGE_LIMIT;
+
+import com.thehayro.internal.Constants;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.util.Log;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * An {@link com.thehayro.view.InfinitePagerAdapter} that prepares its pages off the main thread.
+ * A page first shows a cheap placeholder, while the data and the detached view tree of the page are
+ * prepared on a background executor. Once ready, the prepared page is swapped in on the main thread.
+ * Work for indicators that leave the pages of the ViewPager before it finishes is cancelled.
+ * The placeholder and the prepared page are hosted as a whole in a FrameLayout, which is the page view
+ * passed to the callbacks of the {@link com.thehayro.view.InfinitePagerAdapter}. Pages that are still being
+ * prepared are not cached.
+ * <p></p>
+ *
+ * When you implement an adapter you must implement the following methods:
+ * <ul>
+ *     <li>{@link #loadData(Object)}</li>
+ *     <li>{@link #instantiateItem(Object, Object)}</li>
+ *     <li>{@link #instantiatePlaceholder(Object)}</li>
+ *     <li>{@link InfinitePagerAdapter#getNextIndicator()}</li>
+ *     <li>{@link InfinitePagerAdapter#getPreviousIndicator()}</li>
+ * </ul>
+ * This adapter does not use {@link #bindItem(android.view.ViewGroup, Object)}, so recycling cannot be enabled.
+ * To load the data of several pages in one batch, back {@link #loadData(Object)} with an
+ * {@link com.thehayro.view.InfiniteDataSource}.
+ * @param <T> an indicator datatype to distinguish the pages.
+ * @param <D> the datatype of the page data.
+ */
+public abstract class AsyncInfinitePagerAdapter<T, D> extends InfinitePagerAdapter<T> {
+
+    private static ExecutorService sDefaultExecutor;
+
+    private final Executor mExecutor;
+
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+
+    private final Map<T, PageTask> mPendingTasks = new HashMap<T, PageTask>();
+
+    /**
+     * Standard constructor. Pages are prepared on a shared background thread.
+     * @param initValue the initial indicator value the ViewPager should start with.
+     */
+    public AsyncInfinitePagerAdapter(final T initValue) {
+        this(initValue, getDefaultExecutor());
+    }
+
+    /**
+     *
+     * @param initValue the initial indicator value the ViewPager should start with.
+     * @param executor the executor to prepare the pages on.
+     */
+    public AsyncInfinitePagerAdapter(final T initValue, final Executor executor) {
+        this(initValue, DEFAULT_OFFSCREEN_PAGE_LIMIT, executor);
+    }
+
+    /**
+     * Constructor for a window of more than three pages. Pages are prepared on a shared background thread.
+     * @param initValue the initial indicator value the ViewPager should start with.
+     * @param offscreenPageLimit the number of pages that are kept on each side of the current page.
+     */
+    public AsyncInfinitePagerAdapter(final T initValue, final int offscreenPageLimit) {
+        this(initValue, offscreenPageLimit, getDefaultExecutor());
+    }
+
+    /**
+     *
+     * @param initValue the initial indicator value the ViewPager should start with.
+     * @param offscreenPageLimit the number of pages that are kept on each side of the current page.
+     * @param executor the executor to prepare the pages on.
+     */
+    public AsyncInfinitePagerAdapter(final T initValue, final int offscreenPageLimit, final Executor executor) {
+        super(initValue, offscreenPageLimit);
+        mExecutor = executor;
+    }
+
+    static synchronized Executor getDefaultExecutor() {
+        if (sDefaultExecutor == null) {
+            sDefaultExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(final Runnable r) {
+                    return new Thread(new Runnable() {
+                        @Override
+                        public void run() {
+                            Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                            r.run();
+                        }
+                    }, "InfiniteViewPager-async");
+                }
+            });
+        }
+        return sDefaultExecutor;
+    }
+
+    @Override
+    boolean overridesBindItem() {
+        // prepared pages replace the contents of their container, they cannot be bound
+        return false;
+    }
+
+    /**
+     * Returns a container holding the placeholder and schedules the preparation of the page. Once prepared,
+     * the page replaces the placeholder inside the container.
+     * @param indicator the indicator the page should be instantiated with.
+     * @return the container of the page.
+     */
+    @Override
+    public final ViewGroup instantiateItem(final T indicator) {
+        if (!mPendingTasks.containsKey(indicator)) {
+            final PageTask task = new PageTask(indicator);
+            mPendingTasks.put(indicator, task);
+            mExecutor.execute(task);
+        }
+        final ViewGroup placeholder = instantiatePlaceholder(indicator);
+        // the placeholder and the prepared page may use different layouts, so both are hosted as a whole
+        final FrameLayout container = new FrameLayout(placeholder.getContext());
+        container.addView(placeholder, new FrameLayout.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT,
+            ViewGroup.LayoutParams.MATCH_PARENT));
+        return container;
+    }
+
+    @Override
+    boolean isPagePending(final T indicator) {
+        return mPendingTasks.containsKey(indicator);
+    }
+
+    @Override
+    void onPagesChanged() {
+        final Iterator<Map.Entry<T, PageTask>> it = mPendingTasks.entrySet().iterator();
+        while (it.hasNext()) {
+            final Map.Entry<T, PageTask> entry = it.next();
+            if (!isInWindow(entry.getKey())) {
+                if (Constants.DEBUG) {
+                    Log.d(Constants.LOG_TAG, "cancelling page preparation of " + entry.getKey());
+                }
+                entry.getValue().mCancelled = true;
+                it.remove();
+            }
+        }
+    }
+
+    private void onPagePrepared(final PageTask task, final ViewGroup page) {
+        if (mPendingTasks.get(task.mIndicator) == task) {
+            mPendingTasks.remove(task.mIndicator);
+        }
+        if (task.mCancelled || page == null) {
+            return;
+        }
+        replacePageContents(task.mIndicator, page);
+    }
+
+    /**
+     * Loads the data of a page. Called on a background thread.
+     * @param indicator the indicator of the page.
+     * @return the data of the page.
+     */
+    protected abstract D loadData(T indicator);
+
+    /**
+     * Instantiates a page with its data. Called on a background thread, so the returned view group must
+     * not be attached to a window yet.
+     * @param indicator the indicator the page should be instantiated with.
+     * @param data the data as returned from {@link #loadData(Object)}.
+     * @return a ViewGroup containing the page layout.
+     */
+    public abstract ViewGroup instantiateItem(T indicator, D data);
+
+    /**
+     * Instantiates the placeholder that is shown until the page is prepared. Called on the main thread.
+     * @param indicator the indicator of the page.
+     * @return a ViewGroup containing the placeholder layout.
+     */
+    public abstract ViewGroup instantiatePlaceholder(T indicator);
+
+    private final class PageTask implements Runnable {
+
+        private final T mIndicator;
+
+        private volatile boolean mCancelled;
+
+        PageTask(final T indicator) {
+            mIndicator = indicator;
+        }
+
+        @Override
+        public void run() {
+            ViewGroup page = null;
+            try {
+                if (!mCancelled) {
+                    final D data = loadData(mIndicator);
+                    if (!mCancelled) {
+                        page = instantiateItem(mIndicator, data);
+                    }
+                }
+            } catch (RuntimeException e) {
+                Log.e(Constants.LOG_TAG, "preparing page " + mIndicator + " failed", e);
+            }
+            final ViewGroup preparedPage = page;
+            mHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    onPagePrepared(PageTask.this, preparedPage);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,196 @@
+/*
+ * Copyright (C) 2013 Onur-Hayri Bakici
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.thehayro.view;
+
+import com.thehayro.internal.Constants;
+
+import android.support.v4.util.LruCache;
+import android.util.Log;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Memoizes the next and previous indicators of an adapter whose indicators are expensive to compute,
+ * e.g. business days that skip holidays. Each step is memoized once it is computed by
+ * {@link #computeNext(Object)} or {@link #computePrevious(Object)}, and the steps around the current indicator
+ * are computed ahead on a background thread, so the main thread usually only looks them up.
+ * <p></p>
+ *
+ * Set the sequence with {@link InfinitePagerAdapter#setIndicatorSequence(IndicatorSequence)}. The default
+ * {@link InfinitePagerAdapter#getIndicatorAt(Object, int)} then steps through the sequence, and the adapter
+ * can implement its step methods by delegating to it:
+ * <pre>
+ * public Date getNextIndicator() {
+ *     return getIndicatorSequence().getNext(getCurrentIndicator());
+ * }
+ * </pre>
+ * @param <T> the datatype of the {@link com.thehayro.view.InfinitePagerAdapter} indicator.
+ */
+public abstract class IndicatorSequence<T> {
+
+    public static final int DEFAULT_MAX_SIZE = 256;
+
+    private final LruCache<T, T> mNext;
+
+    private final LruCache<T, T> mPrevious;
+
+    private final Executor mExecutor;
+
+    /**
+     * Guards publishing computed steps and invalidating them. The steps are computed without holding it, so a
+     * slow step on the background thread does not block the main thread from computing another one.
+     */
+    private final Object mPublishLock = new Object();
+
+    /**
+     * Incremented by every {@link #invalidate()} call, steps computed before are not memoized.
+     */
+    private int mInvalidations;
+
+    /**
+     * Incremented by every {@link #prefetch(Object, int)} call, an outdated prefetch stops early.
+     */
+    private volatile int mPrefetchGeneration;
+
+    /**
+     * Standard constructor. Steps are computed ahead on the shared background thread of the
+     * {@link com.thehayro.view.AsyncInfinitePagerAdapter}.
+     */
+    public IndicatorSequence() {
+        this(DEFAULT_MAX_SIZE, AsyncInfinitePagerAdapter.getDefaultExecutor());
+    }
+
+    /**
+     *
+     * @param maxSize the number of steps kept per direction.
+     * @param executor the executor to compute the steps ahead on.
+     */
+    public IndicatorSequence(final int maxSize, final Executor executor) {
+        mNext = new LruCache<T, T>(maxSize);
+        mPrevious = new LruCache<T, T>(maxSize);
+        mExecutor = executor;
+    }
+
+    /**
+     * Computes the next indicator. May be called on a background thread.
+     * @param indicator an indicator.
+     * @return the next indicator of {@code indicator}, never {@code null}.
+     */
+    protected abstract T computeNext(T indicator);
+
+    /**
+     * Computes the previous indicator. May be called on a background thread.
+     * @param indicator an indicator.
+     * @return the previous indicator of {@code indicator}, never {@code null}.
+     */
+    protected abstract T computePrevious(T indicator);
+
+    /**
+     *
+     * @param indicator an indicator.
+     * @return the next indicator of {@code indicator}, computed if it is not memoized yet.
+     */
+    public T getNext(final T indicator) {
+        return step(indicator, 1);
+    }
+
+    /**
+     *
+     * @param indicator an indicator.
+     * @return the previous indicator of {@code indicator}, computed if it is not memoized yet.
+     */
+    public T getPrevious(final T indicator) {
+        return step(indicator, -1);
+    }
+
+    /**
+     *
+     * @param base the indicator to start from.
+     * @param offset the number of steps, negative values step to previous indicators.
+     * @return the indicator {@code offset} steps away from {@code base}.
+     */
+    public T getIndicatorAt(final T base, final int offset) {
+        final int direction = offset < 0 ? -1 : 1;
+        T indicator = base;
+        for (int i = 0, steps = Math.abs(offset); i < steps; i++) {
+            indicator = step(indicator, direction);
+        }
+        return indicator;
+    }
+
+    /**
+     * Computes the steps up to {@code distance} indicators to each side of {@code base} on the background
+     * thread. A previous prefetch that is still running stops.
+     * @param base the indicator to prefetch around.
+     * @param distance the number of steps to each side.
+     */
+    public void prefetch(final T base, final int distance) {
+        final int generation = ++mPrefetchGeneration;
+        mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                T next = base;
+                T previous = base;
+                try {
+                    for (int i = 0; i < distance && generation == mPrefetchGeneration; i++) {
+                        next = step(next, 1);
+                        previous = step(previous, -1);
+                    }
+                } catch (RuntimeException e) {
+                    Log.e(Constants.LOG_TAG, "prefetching indicators around " + base + " failed", e);
+                }
+            }
+        });
+    }
+
+    /**
+     * Drops all memoized steps, e.g. after the holidays changed.
+     */
+    public void invalidate() {
+        synchronized (mPublishLock) {
+            mInvalidations++;
+            mNext.evictAll();
+            mPrevious.evictAll();
+        }
+    }
+
+    private T step(final T indicator, final int direction) {
+        final LruCache<T, T> steps = direction > 0 ? mNext : mPrevious;
+        final T memoized = steps.get(indicator);
+        if (memoized != null) {
+            return memoized;
+        }
+        final int invalidations;
+        synchronized (mPublishLock) {
+            invalidations = mInvalidations;
+        }
+        // both threads may compute the same step at once, only the first result is kept
+        final T result = direction > 0 ? computeNext(indicator) : computePrevious(indicator);
+        synchronized (mPublishLock) {
+            final T published = steps.get(indicator);
+            if (published != null) {
+                return published;
+            }
+            if (invalidations == mInvalidations) {
+                // the reverse step is not recorded, e.g. the next business day of a Saturday is Monday, but
+                // the previous business day of Monday is Friday
+                steps.put(indicator, result);
+            }
+        }
+        return result;
+    }
+}
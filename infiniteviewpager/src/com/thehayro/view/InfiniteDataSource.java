@@ -0,0 +1,266 @@
+/*
+ * Copyright (C) 2013 Onur-Hayri Bakici
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.thehayro.view;
+
+import com.thehayro.internal.Constants;
+
+import android.support.v4.util.LruCache;
+import android.util.Log;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * Loads the data of pages in chunks of consecutive indicators instead of one page at a time. Each
+ * indicator is mapped to an index by {@link #indexOf(Object)}, and the data of a whole chunk of indices is
+ * loaded with one call of {@link #loadRange(long, int)}. The loaded chunks are kept in a bounded LRU cache.
+ * When a page close to the end of its chunk is requested, the neighbouring chunk in the direction of the
+ * previous requests is loaded ahead on the executor.
+ * <p></p>
+ *
+ * A data source is typically used from an {@link com.thehayro.view.AsyncInfinitePagerAdapter}:
+ * <pre>
+ * protected Data loadData(Integer indicator) {
+ *     return mDataSource.get(indicator);
+ * }
+ *
+ * public void onPrefetch(Integer indicator, int distance) {
+ *     mDataSource.prefetch(indicator);
+ * }
+ * </pre>
+ * @param <T> the datatype of the {@link com.thehayro.view.InfinitePagerAdapter} indicator.
+ * @param <D> the datatype of the page data.
+ */
+public abstract class InfiniteDataSource<T, D> {
+
+    public static final int DEFAULT_CHUNK_SIZE = 16;
+
+    public static final int DEFAULT_MAX_CHUNKS = 8;
+
+    private final int mChunkSize;
+
+    private final Executor mExecutor;
+
+    private final LruCache<Long, Chunk<D>> mChunks;
+
+    /**
+     * The index of the last {@link #get(Object)} call, used to guess the swipe direction.
+     */
+    private long mLastIndex;
+
+    private boolean mHasLastIndex;
+
+    /**
+     * Standard constructor. Chunks are loaded ahead on the shared background thread of the
+     * {@link com.thehayro.view.AsyncInfinitePagerAdapter}.
+     */
+    public InfiniteDataSource() {
+        this(DEFAULT_CHUNK_SIZE, DEFAULT_MAX_CHUNKS, AsyncInfinitePagerAdapter.getDefaultExecutor());
+    }
+
+    /**
+     *
+     * @param chunkSize the number of consecutive indices loaded at once.
+     * @param maxChunks the number of chunks kept in the cache.
+     * @param executor the executor to load the chunks ahead on.
+     */
+    public InfiniteDataSource(final int chunkSize, final int maxChunks, final Executor executor) {
+        if (chunkSize < 1 || maxChunks < 1) {
+            throw new IllegalArgumentException("chunkSize and maxChunks must be positive");
+        }
+        mChunkSize = chunkSize;
+        mExecutor = executor;
+        mChunks = new LruCache<Long, Chunk<D>>(maxChunks);
+    }
+
+    /**
+     * Maps an indicator to its index. Consecutive indicators must have consecutive indices.
+     * @param indicator the indicator.
+     * @return the index of the indicator.
+     */
+    protected abstract long indexOf(T indicator);
+
+    /**
+     * Loads the data of {@code count} consecutive indices in one batch. Called on a background thread.
+     * @param fromIndex the first index to load.
+     * @param count the number of indices to load.
+     * @return the data in the order of the indices. A shorter list leaves the data of the remaining indices
+     * {@code null}.
+     */
+    protected abstract List<D> loadRange(long fromIndex, int count);
+
+    public int getChunkSize() {
+        return mChunkSize;
+    }
+
+    /**
+     * Returns the data of an indicator, loading its chunk if it is not cached. Blocks until the chunk is
+     * loaded, so it must not be called on the main thread.
+     * @param indicator the indicator.
+     * @return the data of the indicator or {@code null} if there is none.
+     */
+    public D get(final T indicator) {
+        final long index = indexOf(indicator);
+        final long chunkIndex = chunkIndexOf(index);
+        final Chunk<D> chunk = obtainChunk(chunkIndex);
+        loadChunk(chunk, chunkIndex);
+        loadAhead(index, chunkIndex);
+        return chunk.get((int) (index - chunkIndex * mChunkSize));
+    }
+
+    /**
+     * Returns the data of an indicator if its chunk is already loaded. Does not block.
+     * @param indicator the indicator.
+     * @return the data of the indicator or {@code null} if its chunk is not loaded.
+     */
+    public D peek(final T indicator) {
+        final long index = indexOf(indicator);
+        final long chunkIndex = chunkIndexOf(index);
+        final Chunk<D> chunk = mChunks.get(chunkIndex);
+        return chunk != null ? chunk.get((int) (index - chunkIndex * mChunkSize)) : null;
+    }
+
+    /**
+     * Loads the chunk of an indicator on the executor, if it is not cached yet.
+     * @param indicator the indicator.
+     */
+    public void prefetch(final T indicator) {
+        prefetchChunk(chunkIndexOf(indexOf(indicator)));
+    }
+
+    /**
+     * Drops the cached chunk of an indicator, e.g. after its data changed.
+     * @param indicator the indicator.
+     */
+    public void invalidate(final T indicator) {
+        mChunks.remove(chunkIndexOf(indexOf(indicator)));
+    }
+
+    /**
+     * Drops all cached chunks.
+     */
+    public void invalidateAll() {
+        mChunks.evictAll();
+    }
+
+    private long chunkIndexOf(final long index) {
+        // rounds down for negative indices as well
+        return index >= 0 ? index / mChunkSize : (index + 1) / mChunkSize - 1;
+    }
+
+    private synchronized Chunk<D> obtainChunk(final long chunkIndex) {
+        Chunk<D> chunk = mChunks.get(chunkIndex);
+        if (chunk == null) {
+            chunk = new Chunk<D>();
+            mChunks.put(chunkIndex, chunk);
+        }
+        return chunk;
+    }
+
+    private void loadChunk(final Chunk<D> chunk, final long chunkIndex) {
+        synchronized (chunk) {
+            while (chunk.mLoading) {
+                try {
+                    chunk.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+            if (chunk.mLoaded) {
+                return;
+            }
+            chunk.mLoading = true;
+        }
+        List<D> data = null;
+        try {
+            if (Constants.DEBUG) {
+                Log.d(Constants.LOG_TAG, "loading chunk " + chunkIndex);
+            }
+            data = loadRange(chunkIndex * mChunkSize, mChunkSize);
+        } finally {
+            synchronized (chunk) {
+                chunk.mData = data;
+                chunk.mLoaded = data != null;
+                chunk.mLoading = false;
+                chunk.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Prefetches the neighbouring chunk once {@code index} is in the half of its chunk that faces the
+     * direction of the previous requests.
+     */
+    private void loadAhead(final long index, final long chunkIndex) {
+        final int direction;
+        synchronized (this) {
+            direction = mHasLastIndex ? Long.signum(index - mLastIndex) : 0;
+            mLastIndex = index;
+            mHasLastIndex = true;
+        }
+        if (direction == 0) {
+            return;
+        }
+        final long offset = index - chunkIndex * mChunkSize;
+        if (direction > 0 ? offset >= mChunkSize / 2 : offset < mChunkSize - mChunkSize / 2) {
+            prefetchChunk(chunkIndex + direction);
+        }
+    }
+
+    private void prefetchChunk(final long chunkIndex) {
+        final Chunk<D> chunk = obtainChunk(chunkIndex);
+        synchronized (chunk) {
+            if (chunk.mLoaded || chunk.mLoading || chunk.mQueued) {
+                return;
+            }
+            chunk.mQueued = true;
+        }
+        mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    loadChunk(chunk, chunkIndex);
+                } catch (RuntimeException e) {
+                    Log.e(Constants.LOG_TAG, "loading chunk " + chunkIndex + " failed", e);
+                } finally {
+                    synchronized (chunk) {
+                        chunk.mQueued = false;
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * The data of {@link #getChunkSize()} consecutive indices. Guarded by its own monitor.
+     */
+    private static final class Chunk<D> {
+
+        private List<D> mData;
+
+        private boolean mLoaded;
+
+        private boolean mLoading;
+
+        private boolean mQueued;
+
+        synchronized D get(final int offset) {
+            return mData != null && offset < mData.size() ? mData.get(offset) : null;
+        }
+    }
+}
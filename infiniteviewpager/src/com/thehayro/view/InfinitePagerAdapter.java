@@ -15,15 +15,29 @@
  */
 package com.thehayro.view;
 
-import static com.thehayro.internal.Constants.PAGE_COUNT;
+import static com.thehayro.internal.Constants.DEFAULT_OFFSCREEN_PAGE_LIMIT;
 
 import com.thehayro.internal.Constants;
 import com.thehayro.internal.PageModel;
+import com.thehayro.internal.PagePool;
 
+import android.content.ComponentCallbacks2;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Parcel;
+import android.os.Parcelable;
+import android.os.Trace;
 import android.support.v4.view.PagerAdapter;
 import android.util.Log;
+import android.util.SparseArray;
 import android.view.View;
 import android.view.ViewGroup;
+import android.widget.FrameLayout;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 
 /**
  * Base class providing the adapter to populate inside of a {@link com.thehayro.view.InfiniteViewPager}.
@@ -39,94 +53,1063 @@ import android.view.ViewGroup;
  *     <li>{@link InfinitePagerAdapter#getNextIndicator()}</li>
  *     <li>{@link InfinitePagerAdapter#getPreviousIndicator()}</li>
  * </ul>
+ * A window of more than three pages and prefetching look up indicators apart from the current one. They need
+ * {@link #getNextIndicator(Object)} and {@link #getPreviousIndicator(Object)}, {@link #getIndicatorAt(Object, int)}
+ * or an {@link IndicatorSequence}.
+ * If the pages should be recycled instead of instantiated on every page change, override
+ * {@link #bindItem(android.view.ViewGroup, Object)} (and {@link #getItemViewType(Object)} for different layouts)
+ * and call {@link #setRecyclingEnabled(boolean)}.
+ * If the indicators have a first or last value, override {@link #hasPreviousIndicator(Object)} and
+ * {@link #hasNextIndicator(Object)}.
  * @param <T> an indicator datatype to distinguish the pages.
  */
 public abstract class InfinitePagerAdapter<T> extends PagerAdapter {
 
-    private PageModel<T>[] mPageModels;
+    /**
+     * Returned by {@link #getOffsetOf(Object)} for indicators outside of the window.
+     */
+    static final int NO_OFFSET = Integer.MIN_VALUE;
+
+    private PageModel<T>[] mPageModels;
+
+    private boolean[] mPendingFills;
+
+    private int mPendingFillCount;
+
+    private SparseArray<Parcelable>[] mPendingPageStates;
+
+    private PagerMetrics mMetrics;
+
+    private T mCurrentIndicator;
+
+    private boolean mRecyclingEnabled;
+
+    private boolean mPageRotationEnabled;
+
+    private boolean mPositionsChanged;
+
+    private boolean mBoundsValid;
+
+    private int mFirstReachablePosition;
+
+    private int mLastReachablePosition;
+
+    private PagePool mPagePool = new PagePool();
+
+    private SharedPagePool mSharedPagePool;
+
+    private PageCache<T> mPageCache;
+
+    private int mMaxPrefetchDistance;
+
+    private float mContentFillThreshold;
+
+    private IndicatorSequence<T> mIndicatorSequence;
+
+    /**
+     * {@code true} if the indicators apart from the current one can be looked up without a sequence.
+     */
+    private final boolean mStepsOverridden;
+
+    private final ArrayList<T> mChangedIndicators = new ArrayList<T>();
+
+    private boolean mRefreshScheduled;
+
+    /**
+     * The indicators of the pages on screen, see {@link #updatePageVisibility(int, float)}.
+     */
+    private final ArrayList<T> mShownIndicators = new ArrayList<T>(2);
+
+    private T mVisibleIndicator;
+
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+
+    private final Runnable mRefreshRunnable = new Runnable() {
+        @Override
+        public void run() {
+            refreshChangedIndicators();
+        }
+    };
+
+    private ArrayList<T> mPrefetched = new ArrayList<T>();
+
+    private ArrayList<T> mPrefetchScrap = new ArrayList<T>();
+
+    /**
+     * The number of pages the window moved since the last prefetch, {@link #NO_OFFSET} if the prefetched
+     * indicators cannot be reused.
+     */
+    private int mPrefetchShift = NO_OFFSET;
+
+    private int mPrefetchDirection;
+
+    private int mPrefetchCount;
+
+    /**
+     * Standard constructor.
+     * @param initValue the initial indicator value the ViewPager should start with.
+     */
+    public InfinitePagerAdapter(T initValue) {
+        this(initValue, DEFAULT_OFFSCREEN_PAGE_LIMIT);
+    }
+
+    /**
+     * Constructor for a window of more than three pages.
+     * @param initValue the initial indicator value the ViewPager should start with.
+     * @param offscreenPageLimit the number of pages that are kept on each side of the current page.
+     *                           The ViewPager holds {@code 2 * offscreenPageLimit + 1} pages.
+     */
+    public InfinitePagerAdapter(T initValue, final int offscreenPageLimit) {
+        if (offscreenPageLimit < 1) {
+            throw new IllegalArgumentException("offscreenPageLimit must be at least 1.");
+        }
+        mCurrentIndicator = initValue;
+        mStepsOverridden = overrides(InfinitePagerAdapter.class, "getIndicatorAt", Object.class, int.class)
+            || overrides(InfinitePagerAdapter.class, "getNextIndicator", Object.class)
+            && overrides(InfinitePagerAdapter.class, "getPreviousIndicator", Object.class);
+
+        mPageModels = new PageModel[2 * offscreenPageLimit + 1];
+        mPendingFills = new boolean[mPageModels.length];
+    }
+
+    /**
+     * This method is only called, when this pagerAdapter is initialized.
+     */
+    @Override
+    public final Object instantiateItem(final ViewGroup container, final int position) {
+        if (Constants.DEBUG) {
+            Log.i("InfiniteViewPager", String.format("instantiating position %s", position));
+        }
+        PageModel<T> model = mPageModels[position];
+        if (model == null || model.getParentView().getParent() != null) {
+            model = obtainPageModel(container, position);
+            mPageModels[position] = model;
+        }
+        if (mPendingPageStates != null && mPendingPageStates[position] != null) {
+            model.getParentView().restoreHierarchyState(mPendingPageStates[position]);
+            mPendingPageStates[position] = null;
+        }
+        if (position == getCenterPosition()) {
+            fillContentIfNeeded(position);
+        }
+        container.addView(model.getParentView());
+        return model;
+    }
+
+    /**
+     * Package internal.
+     * @param position the page index.
+     * @return the view hierarchy state of the page on index {@code position} or {@code null} if there is
+     * no such page.
+     */
+    SparseArray<Parcelable> savePageState(final int position) {
+        final PageModel<T> model = mPageModels[position];
+        if (model == null) {
+            return null;
+        }
+        final SparseArray<Parcelable> state = new SparseArray<Parcelable>();
+        model.getParentView().saveHierarchyState(state);
+        return state;
+    }
+
+    /**
+     * Package internal. Restores the view hierarchy state of the page on index {@code position}. If the page
+     * is not instantiated yet, the state is restored once it is.
+     * @param position the page index.
+     * @param state the state as returned by {@link #savePageState(int)}.
+     */
+    @SuppressWarnings("unchecked")
+    void restorePageState(final int position, final SparseArray<Parcelable> state) {
+        final PageModel<T> model = mPageModels[position];
+        if (model != null) {
+            model.getParentView().restoreHierarchyState(state);
+            return;
+        }
+        if (mPendingPageStates == null) {
+            mPendingPageStates = new SparseArray[mPageModels.length];
+        }
+        mPendingPageStates[position] = state;
+    }
+
+    /**
+     * fills the page on index {@code position}.
+     * @param position the page index to fill the page.
+     */
+    void fillPage(final int position) {
+        final long start = beginOperation("InfiniteViewPager#fillPage");
+        try {
+            fillPageInternal(position);
+            if (position == getCenterPosition()) {
+                fillContentIfNeeded(position);
+            }
+        } finally {
+            endOperation(PagerMetrics.OPERATION_FILL, start);
+        }
+    }
+
+    private void fillPageInternal(final int position) {
+        if (Constants.DEBUG) {
+            Log.d("InfiniteViewPager", "setup Page " + position);
+            printPageModels("before newPage");
+        }
+        if (mPendingFills[position]) {
+            mPendingFills[position] = false;
+            mPendingFillCount--;
+        }
+        final T indicator = getIndicatorFromPagePosition(position);
+        final PageModel<T> model = mPageModels[position];
+        if (model != null && model.getIndicator() != null) {
+            // the contents are replaced, the page is shown again on the next visibility update
+            dispatchPageHidden(model.getIndicator(), model.getParentView());
+        }
+        if (model != null && model.isPlaceholder()) {
+            if (indicator != null) {
+                // the placeholder cannot hold page contents, the ViewPager has to replace it by a page.
+                mPageModels[position] = newPageModel(indicator);
+                notifyDataSetChanged();
+                onPagesChanged();
+            }
+            return;
+        }
+        if (indicator == null) {
+            // the page cannot be reached, it stays empty.
+            if (model != null) {
+                model.removeAllChildren();
+                model.setViewType(PageModel.VIEW_TYPE_NONE);
+                model.setIndicator(null);
+                onPagesChanged();
+            }
+            return;
+        }
+        if (retainsPages()) {
+            if (model == null) {
+                Log.w(Constants.LOG_TAG, "fillPage no model found");
+                return;
+            }
+            fillRetaining(model, indicator);
+            onPagesChanged();
+            return;
+        }
+        final PageModel<T> oldModel = model;
+        final PageModel<T> newModel = createPageModel(indicator);
+        if (oldModel == null || newModel == null) {
+            Log.w(Constants.LOG_TAG, "fillPage no model found " + oldModel + " " + newModel);
+            return;
+        }
+        // moving the new created views to the page of the viewpager
+        moveChildren(newModel.getParentView(), oldModel);
+        oldModel.setContentFilled(newModel.isContentFilled());
+
+        mPageModels[position].setIndicator(newModel.getIndicator());
+        onPagesChanged();
+    }
+
+    /**
+     *
+     * @return {@code true} if replaced page contents are kept for the cache or the pool.
+     */
+    private boolean retainsPages() {
+        return mRecyclingEnabled || mPageCache != null;
+    }
+
+    private static void moveChildren(final ViewGroup from, final PageModel<?> to) {
+        to.removeAllChildren();
+        while (from.getChildCount() > 0) {
+            final View child = from.getChildAt(0);
+            from.removeViewAt(0);
+            to.addChild(child);
+        }
+    }
+
+    /**
+     * Package internal. Replaces the contents of the page showing {@code indicator} with {@code content}
+     * itself, so the type, padding, background and layout params of {@code content} are kept. Layout params
+     * of another type are converted by the page. Without layout params, the content fills the page.
+     * @param indicator the indicator of the page to replace.
+     * @param content a detached view group holding the new page contents.
+     * @return {@code true} if a page with {@code indicator} was found.
+     */
+    boolean replacePageContents(final T indicator, final ViewGroup content) {
+        final PageModel<T> model = findPageModel(indicator);
+        if (model == null) {
+            return false;
+        }
+        dispatchPageHidden(indicator, model.getParentView());
+        model.removeAllChildren();
+        if (content.getLayoutParams() == null) {
+            content.setLayoutParams(new ViewGroup.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT,
+                ViewGroup.LayoutParams.MATCH_PARENT));
+        }
+        model.addChild(content);
+        model.setContentFilled(true);
+        return true;
+    }
+
+    /**
+     * Package internal.
+     * @param indicator an indicator.
+     * @return {@code true} if the page of {@code indicator} is still being prepared, so its contents must
+     * not be cached.
+     */
+    boolean isPagePending(final T indicator) {
+        return false;
+    }
+
+    /**
+     * Package internal. Called after a page has been filled with a new indicator.
+     */
+    void onPagesChanged() {
+        // nop
+    }
+
+    /**
+     * Package internal.
+     * @param indicator an indicator.
+     * @return {@code true} if one of the pages currently holds {@code indicator}.
+     */
+    boolean isInWindow(final T indicator) {
+        return findPosition(indicator) >= 0;
+    }
+
+    /**
+     *
+     * @param indicator an indicator.
+     * @return the index of the page that holds {@code indicator} or will hold it once its deferred fill ran,
+     * {@code -1} if there is none.
+     */
+    private int findPosition(final T indicator) {
+        for (int i = 0; i < mPageModels.length; i++) {
+            if (indicator.equals(getWindowIndicator(i))) {
+                return i;
+            }
+        }
+        // a deferred page shows its indicator once it is filled
+        for (int i = 0; i < mPendingFills.length && mPendingFillCount > 0; i++) {
+            if (mPendingFills[i] && indicator.equals(getIndicatorFromPagePosition(i))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private PageModel<T> findPageModel(final T indicator) {
+        for (int i = 0; i < mPageModels.length; i++) {
+            if (indicator.equals(getWindowIndicator(i))) {
+                return mPageModels[i];
+            }
+        }
+        return null;
+    }
+
+    /**
+     *
+     * @param position the page index.
+     * @return the indicator of the page on index {@code position} or {@code null} if there is none. A page
+     * whose fill is deferred has none, its model still holds the indicator it showed before.
+     */
+    private T getWindowIndicator(final int position) {
+        final PageModel<T> model = mPageModels[position];
+        return model != null && !mPendingFills[position] ? model.getIndicator() : null;
+    }
+
+    /**
+     * Fills {@code model} with the page of {@code indicator}. The page is taken from the cache, bound to the
+     * current contents or to contents from the pool. Only if none of them fit, a new page is instantiated.
+     * The replaced contents are cached or pooled.
+     * @param model the model to fill.
+     * @param indicator the new indicator of the model.
+     */
+    private void fillRetaining(final PageModel<T> model, final T indicator) {
+        final T oldIndicator = model.getIndicator();
+        if (mPageCache != null) {
+            final PageModel<?> cached = mPageCache.remove(indicator);
+            if (mMetrics != null) {
+                mMetrics.onCacheLookup(cached != null);
+            }
+            if (cached != null) {
+                model.swapChildren(cached);
+                model.setIndicator(indicator);
+                retirePage(cached, oldIndicator);
+                return;
+            }
+        }
+        final int viewType = getItemViewType(indicator);
+        if (mRecyclingEnabled && mPageCache == null && model.hasChildren() && model.getViewType() == viewType) {
+            bindItem(model.getParentView(), indicator);
+            onContentsBound(model, indicator);
+            if (mMetrics != null) {
+                mMetrics.onPoolLookup(true);
+            }
+        } else {
+            PageModel<?> page = mRecyclingEnabled ? mPagePool.acquire(viewType) : null;
+            if (mRecyclingEnabled && mMetrics != null) {
+                mMetrics.onPoolLookup(page != null);
+            }
+            if (page == null) {
+                page = new PageModel<T>(instantiatePage(indicator), indicator, viewType);
+            } else {
+                bindItem(page.getParentView(), indicator);
+            }
+            onContentsBound(page, indicator);
+            model.swapChildren(page);
+            retirePage(page, oldIndicator);
+        }
+        model.setIndicator(indicator);
+    }
+
+    /**
+     * Keeps replaced page contents in the cache or, if there is no cache, in the pool.
+     * @param page a detached model holding the replaced contents.
+     * @param indicator the indicator the contents were bound to.
+     */
+    private void retirePage(final PageModel<?> page, final T indicator) {
+        if (!page.hasChildren()) {
+            return;
+        }
+        if (mPageCache != null && indicator != null && page.isContentFilled() && !isPagePending(indicator)) {
+            // pages that were never seen are not worth caching, placeholders would never be replaced
+            mPageCache.put(indicator, page);
+        } else if (mRecyclingEnabled) {
+            mPagePool.release(page);
+        }
+    }
+
+    /**
+     * Package internal. Called by the page cache when it drops a page.
+     */
+    void evictPage(final T indicator, final PageModel<?> page) {
+        if (Constants.DEBUG) {
+            Log.d(Constants.LOG_TAG, "evicting cached page " + indicator);
+        }
+        onPageEvicted(indicator, page.getParentView());
+        if (mRecyclingEnabled) {
+            mPagePool.release(page);
+        }
+    }
+
+    /**
+     * Creates the internal page model. This method calls the {@link #instantiateItem(Object)} method
+     * that creates the page content.
+     * @param indicator the indicator of the page.
+     * @return a new instance of a page model.
+     */
+    private PageModel<T> createPageModel(final T indicator) {
+        final ViewGroup view = instantiatePage(indicator);
+        final PageModel<T> model = new PageModel<T>(view, indicator, getItemViewType(indicator));
+        onContentsBound(model, indicator);
+        return model;
+    }
+
+    /**
+     * Called whenever {@code model} got new contents from {@link #instantiateItem(Object)} or
+     * {@link #bindItem(ViewGroup, Object)}. Without a content fill threshold the content is filled right away.
+     */
+    private void onContentsBound(final PageModel<?> model, final T indicator) {
+        model.setContentFilled(false);
+        if (mContentFillThreshold <= 0) {
+            fillContent(model.getParentView(), indicator);
+            model.setContentFilled(true);
+        }
+    }
+
+    /**
+     * Package internal. Fills the content of the page on index {@code position}, unless it is filled already.
+     * @param position the page index.
+     */
+    void fillContentIfNeeded(final int position) {
+        final PageModel<T> model = mPageModels[position];
+        if (model == null || model.isContentFilled() || model.getIndicator() == null || !model.hasChildren()) {
+            return;
+        }
+        fillContent(model.getParentView(), model.getIndicator());
+        model.setContentFilled(true);
+    }
+
+    /**
+     * Package internal. Dispatches the visibility callbacks for the pages on screen. The pages are tracked by
+     * their indicators, so a page keeps its state when its contents are moved to another position.
+     * @param position the index of the left visible page.
+     * @param positionOffset the fraction of the right visible page that is on screen.
+     */
+    void updatePageVisibility(final int position, final float positionOffset) {
+        final T left = getShownIndicator(position);
+        final T right = positionOffset > 0 ? getShownIndicator(position + 1) : null;
+        updatePageVisibility(left, left != null ? mPageModels[position].getParentView() : null,
+            right, right != null ? mPageModels[position + 1].getParentView() : null, positionOffset);
+    }
+
+    /**
+     * Package internal. Dispatches the visibility callbacks for the pages on screen, pages that were shown
+     * before and are neither {@code left} nor {@code right} are hidden.
+     * @param left the indicator of the left visible page or {@code null} if it has none.
+     * @param leftPage the page view of {@code left}.
+     * @param right the indicator of the right visible page or {@code null} if it has none.
+     * @param rightPage the page view of {@code right}.
+     * @param positionOffset the fraction of the right visible page that is on screen.
+     */
+    void updatePageVisibility(final T left, final ViewGroup leftPage, final T right, final ViewGroup rightPage,
+                              final float positionOffset) {
+        for (int i = mShownIndicators.size() - 1; i >= 0; i--) {
+            final T indicator = mShownIndicators.get(i);
+            if (!indicator.equals(left) && !indicator.equals(right)) {
+                final PageModel<T> model = findPageModel(indicator);
+                dispatchPageHidden(indicator, model != null ? model.getParentView() : null);
+            }
+        }
+        dispatchPageShown(left, leftPage, 1f - positionOffset);
+        dispatchPageShown(right, rightPage, positionOffset);
+    }
+
+    /**
+     * Package internal. Hides all pages on screen, e.g. when the ViewPager is detached.
+     */
+    void hideAllPages() {
+        for (int i = mShownIndicators.size() - 1; i >= 0; i--) {
+            final T indicator = mShownIndicators.get(i);
+            final PageModel<T> model = findPageModel(indicator);
+            dispatchPageHidden(indicator, model != null ? model.getParentView() : null);
+        }
+    }
+
+    private T getShownIndicator(final int position) {
+        if (position < 0 || position >= mPageModels.length) {
+            return null;
+        }
+        final PageModel<T> model = mPageModels[position];
+        return model != null && model.hasChildren() ? getWindowIndicator(position) : null;
+    }
+
+    private void dispatchPageShown(final T indicator, final ViewGroup page, final float visibleFraction) {
+        if (indicator == null || visibleFraction <= 0f) {
+            return;
+        }
+        if (!mShownIndicators.contains(indicator)) {
+            mShownIndicators.add(indicator);
+        }
+        if (visibleFraction >= 1f) {
+            if (!indicator.equals(mVisibleIndicator)) {
+                mVisibleIndicator = indicator;
+                onPageVisible(indicator, page);
+            }
+        } else {
+            if (indicator.equals(mVisibleIndicator)) {
+                mVisibleIndicator = null;
+            }
+            onPagePartiallyVisible(indicator, visibleFraction);
+        }
+    }
+
+    /**
+     * Package internal. Hides the page of {@code indicator} if it is shown.
+     * @param indicator the indicator of the page.
+     * @param page the page view still showing {@code indicator} or {@code null} if the page is gone already.
+     */
+    void dispatchPageHidden(final T indicator, final ViewGroup page) {
+        if (!mShownIndicators.remove(indicator)) {
+            return;
+        }
+        if (indicator.equals(mVisibleIndicator)) {
+            mVisibleIndicator = null;
+        }
+        onPageHidden(indicator, page);
+    }
+
+    /**
+     * Creates the page model for a page the ViewPager instantiates. Pages that cannot be reached get an
+     * empty placeholder instead.
+     * @param container the ViewPager.
+     * @param pagePosition the position in the pageModel array between [0..getCount() - 1]
+     * @return the page model.
+     */
+    private PageModel<T> obtainPageModel(final ViewGroup container, final int pagePosition) {
+        final T indicator = getIndicatorFromPagePosition(pagePosition);
+        if (indicator == null) {
+            final PageModel<T> placeholder = new PageModel<T>(new FrameLayout(container.getContext()), null);
+            placeholder.setPlaceholder(true);
+            return placeholder;
+        }
+        return newPageModel(indicator);
+    }
+
+    /**
+     * Creates a page model that is not part of the window yet. A cached page is used or, with recycling
+     * enabled, a pooled page is bound if there is one.
+     * @param indicator the indicator of the page.
+     * @return the page model.
+     */
+    @SuppressWarnings("unchecked")
+    private PageModel<T> newPageModel(final T indicator) {
+        if (mPageCache != null) {
+            final PageModel<T> cached = (PageModel<T>) mPageCache.remove(indicator);
+            if (mMetrics != null) {
+                mMetrics.onCacheLookup(cached != null);
+            }
+            if (cached != null) {
+                cached.setIndicator(indicator);
+                return cached;
+            }
+        }
+        if (!mRecyclingEnabled) {
+            return createPageModel(indicator);
+        }
+        final PageModel<T> pooled = (PageModel<T>) mPagePool.acquire(getItemViewType(indicator));
+        if (mMetrics != null) {
+            mMetrics.onPoolLookup(pooled != null);
+        }
+        if (pooled == null) {
+            return createPageModel(indicator);
+        }
+        bindItem(pooled.getParentView(), indicator);
+        onContentsBound(pooled, indicator);
+        pooled.setIndicator(indicator);
+        return pooled;
+    }
+
+    private ViewGroup instantiatePage(final T indicator) {
+        final long start = beginOperation("InfiniteViewPager#instantiateItem");
+        try {
+            return instantiateItem(indicator);
+        } finally {
+            endOperation(PagerMetrics.OPERATION_INSTANTIATE, start);
+        }
+    }
+
+    /**
+     * Package internal. Starts measuring an operation, if metrics are installed.
+     * @param section the name of the trace section.
+     * @return the start time to pass to {@link #endOperation(int, long)}, {@code 0} if nothing is measured.
+     */
+    long beginOperation(final String section) {
+        if (mMetrics == null) {
+            return 0;
+        }
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2) {
+            Trace.beginSection(section);
+        }
+        return System.nanoTime();
+    }
+
+    /**
+     * Package internal. Starts measuring an operation that spans several frames, so it is not traced.
+     * @return the start time to pass to {@link #endTiming(int, long)}, {@code 0} if nothing is measured.
+     */
+    long beginTiming() {
+        return mMetrics == null ? 0 : System.nanoTime();
+    }
+
+    /**
+     * Package internal. Finishes measuring an operation started with {@link #beginTiming()}.
+     * @param operation one of the {@code PagerMetrics.OPERATION_*} constants.
+     * @param start the start time returned by {@link #beginTiming()}.
+     */
+    void endTiming(final int operation, final long start) {
+        if (start != 0 && mMetrics != null) {
+            mMetrics.onOperation(operation, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Package internal. Finishes measuring an operation started with {@link #beginOperation(String)}.
+     * @param operation one of the {@code PagerMetrics.OPERATION_*} constants.
+     * @param start the start time returned by {@link #beginOperation(String)}.
+     */
+    void endOperation(final int operation, final long start) {
+        if (start == 0) {
+            return;
+        }
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2) {
+            Trace.endSection();
+        }
+        endTiming(operation, start);
+    }
+
+    /**
+     * Installs metrics for the page lifecycle operations.
+     * @param metrics the metrics or {@code null} to remove them.
+     */
+    public final void setPagerMetrics(final PagerMetrics metrics) {
+        mMetrics = metrics;
+    }
+
+    public final PagerMetrics getPagerMetrics() {
+        return mMetrics;
+    }
+
+    /**
+     * Rebinds the page of {@code indicator} if it is in the window and drops its cached page. Notifications
+     * are collected and handled at once on the next message of the main thread, so several notifications
+     * in a row cost a single pass. Must be called on the main thread.
+     * @param indicator the indicator whose data changed.
+     */
+    public final void notifyIndicatorChanged(final T indicator) {
+        if (!mChangedIndicators.contains(indicator)) {
+            mChangedIndicators.add(indicator);
+        }
+        scheduleRefresh();
+    }
+
+    /**
+     * Rebinds the pages of {@code indicators}, see {@link #notifyIndicatorChanged(Object)}.
+     * @param indicators the indicators whose data changed.
+     */
+    public final void notifyIndicatorsChanged(final Collection<? extends T> indicators) {
+        for (final T indicator : indicators) {
+            if (!mChangedIndicators.contains(indicator)) {
+                mChangedIndicators.add(indicator);
+            }
+        }
+        scheduleRefresh();
+    }
+
+    private void scheduleRefresh() {
+        if (!mRefreshScheduled && !mChangedIndicators.isEmpty()) {
+            mRefreshScheduled = true;
+            mHandler.post(mRefreshRunnable);
+        }
+    }
+
+    private void refreshChangedIndicators() {
+        mRefreshScheduled = false;
+        for (int i = 0, size = mChangedIndicators.size(); i < size; i++) {
+            final T indicator = mChangedIndicators.get(i);
+            for (int position = 0; position < mPageModels.length; position++) {
+                final PageModel<T> model = mPageModels[position];
+                // pending pages are filled with the new data anyway
+                if (model != null && !mPendingFills[position] && indicator.equals(model.getIndicator())) {
+                    fillPage(position);
+                }
+            }
+            // after the fill, the old contents may have been cached
+            if (mPageCache != null) {
+                final PageModel<?> cached = mPageCache.remove(indicator);
+                if (cached != null) {
+                    evictPage(indicator, cached);
+                }
+            }
+        }
+        mChangedIndicators.clear();
+    }
+
+    protected final T getCurrentIndicator() {
+        return mCurrentIndicator;
+    }
+
+    /**
+     * Package internal.
+     * @param offset the distance from the current indicator, e.g. of a page that is selected before the pages
+     *               are shifted.
+     * @return the indicator {@code offset} pages away from the current indicator, taken from the window if
+     * possible.
+     */
+    T getIndicatorOfOffset(final int offset) {
+        if (offset == 0) {
+            return getCurrentIndicator();
+        }
+        final int position = getCenterPosition() + offset;
+        final T indicator = position >= 0 && position < mPageModels.length ? getWindowIndicator(position) : null;
+        return indicator != null ? indicator : getIndicatorAt(getCurrentIndicator(), offset);
+    }
+
+    /**
+     *
+     * @param pagePosition the position in the pageModel array between [0..getCount() - 1]
+     * @return the indicator of the page or {@code null} if the page cannot be reached.
+     */
+    private T getIndicatorFromPagePosition(final int pagePosition) {
+        if (pagePosition < getFirstReachablePosition() || pagePosition > getLastReachablePosition()) {
+            return null;
+        }
+        return getIndicatorAt(getCurrentIndicator(), pagePosition - getCenterPosition());
+    }
+
+    /**
+     * Package internal.
+     * @return the index of the first page that can be reached from the current page.
+     * @see #hasPreviousIndicator(Object)
+     */
+    int getFirstReachablePosition() {
+        updateBounds();
+        return mFirstReachablePosition;
+    }
+
+    /**
+     * Package internal.
+     * @return the index of the last page that can be reached from the current page.
+     * @see #hasNextIndicator(Object)
+     */
+    int getLastReachablePosition() {
+        updateBounds();
+        return mLastReachablePosition;
+    }
+
+    private void updateBounds() {
+        if (mBoundsValid) {
+            return;
+        }
+        mBoundsValid = true;
+        final int center = getCenterPosition();
+        mLastReachablePosition = center + getReachableDistance(1, center);
+        mFirstReachablePosition = center - getReachableDistance(-1, center);
+    }
+
+    /**
+     * Package internal.
+     * @param direction {@code 1} for next indicators, {@code -1} for previous indicators.
+     * @param max the maximum distance of interest.
+     * @return the number of pages that can be reached from the current indicator in {@code direction}, at
+     * most {@code max}.
+     */
+    int getReachableDistance(final int direction, final int max) {
+        T indicator = getCurrentIndicator();
+        for (int distance = 0; distance < max; distance++) {
+            if (!hasIndicator(indicator, direction)) {
+                return distance;
+            }
+            if (distance + 1 < max) {
+                indicator = getIndicatorAt(indicator, direction);
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Package internal.
+     * @param indicator an indicator.
+     * @param direction {@code 1} for next indicators, {@code -1} for previous indicators.
+     * @return {@code true} if there is an indicator following {@code indicator} in {@code direction}.
+     */
+    boolean hasIndicator(final T indicator, final int direction) {
+        return direction > 0 ? hasNextIndicator(indicator) : hasPreviousIndicator(indicator);
+    }
+
+    /**
+     *
+     * @return the index of the page showing the current indicator.
+     */
+    public final int getCenterPosition() {
+        return mPageModels.length / 2;
+    }
+
+    /**
+     *
+     * @return the number of pages kept on each side of the current page.
+     */
+    public final int getOffscreenPageLimit() {
+        return mPageModels.length / 2;
+    }
+
+    /**
+     * Package internal. Makes the indicator {@code offset} pages away from the current indicator the current
+     * one. The pages that stay inside the window are moved (or rotated), only the others are filled.
+     * @param offset the distance of the new current page from the center page.
+     */
+    boolean shiftPages(final int offset) {
+        return shiftPages(offset, false);
+    }
+
+    /**
+     * Package internal. Makes the indicator {@code offset} pages away from the current indicator the current
+     * one. The pages that stay inside the window are moved (or rotated), only the others are filled.
+     * @param offset the distance of the new current page from the center page, at most one page beyond the
+     *               window as returned by {@link #getOffsetOf(Object)}. Farther indicators are set by filling
+     *               all pages instead.
+     * @param deferFill {@code true} to only mark the offscreen pages to fill as pending, see
+     *                  {@link #getNextPendingFill(int)}. The center page is always filled.
+     * @return {@code true} if pages changed their positions, the ViewPager has to be notified then.
+     */
+    boolean shiftPages(final int offset, final boolean deferFill) {
+        final int count = mPageModels.length;
+        final int center = getCenterPosition();
+        if (offset == 0) {
+            return false;
+        }
+        if (Math.abs(offset) > center + 1) {
+            throw new IllegalArgumentException("cannot shift " + offset + " pages, the window is too small");
+        }
+        if (Math.abs(offset) <= center
+            && (center + offset < getFirstReachablePosition() || center + offset > getLastReachablePosition())) {
+            Log.w(Constants.LOG_TAG, "cannot shift to unreachable page " + offset);
+            return false;
+        }
+        fillPendingPages();
+        mPositionsChanged = false;
+        final int prefetchShift = mPrefetchShift;
+        final PageModel<T> target = Math.abs(offset) <= center ? mPageModels[center + offset] : null;
+        final T indicator = target != null && target.getIndicator() != null
+            ? target.getIndicator() : getIndicatorAt(getCurrentIndicator(), offset);
+
+        if (mPageRotationEnabled) {
+            rotatePages(-offset);
+        } else if (offset > 0) {
+            for (int i = 0; i < count - offset; i++) {
+                movePageContents(i + offset, i);
+            }
+        } else {
+            for (int i = count - 1; i >= -offset; i--) {
+                movePageContents(i + offset, i);
+            }
+        }
+        setCurrentIndicator(indicator);
+        if (prefetchShift != NO_OFFSET) {
+            mPrefetchShift = prefetchShift + offset;
+        }
 
-    private T mCurrentIndicator;
+        if (offset > 0) {
+            for (int i = count - offset; i < count; i++) {
+                fillOrDefer(i, deferFill && i != center);
+            }
+        } else {
+            for (int i = -offset - 1; i >= 0; i--) {
+                fillOrDefer(i, deferFill && i != center);
+            }
+        }
+        // the center page is visible, so its content is needed now
+        fillContentIfNeeded(center);
+        return mPositionsChanged || mPageRotationEnabled;
+    }
+
+    private void fillOrDefer(final int position, final boolean defer) {
+        final PageModel<T> model = mPageModels[position];
+        if (!defer || model != null && model.isPlaceholder()) {
+            // placeholders are replaced right away, replacing them later would interrupt a drag.
+            fillPage(position);
+        } else if (!mPendingFills[position]) {
+            mPendingFills[position] = true;
+            mPendingFillCount++;
+        }
+    }
 
     /**
-     * Standard constructor.
-     * @param initValue the initial indicator value the ViewPager should start with.
+     * Package internal.
+     * @param position the page index.
+     * @return the view of the page on index {@code position} or {@code null} if the page has no contents.
      */
-    public InfinitePagerAdapter(T initValue) {
-        mCurrentIndicator = initValue;
+    View getPageView(final int position) {
+        final PageModel<T> model = mPageModels[position];
+        return model != null && model.hasChildren() ? model.getParentView() : null;
+    }
 
-        mPageModels = new PageModel[PAGE_COUNT];
+    /**
+     * Package internal.
+     * @return {@code true} if the ViewPager has instantiated the pages.
+     */
+    boolean hasPages() {
+        return mPageModels[getCenterPosition()] != null;
     }
 
     /**
-     * This method is only called, when this pagerAdapter is initialized.
+     * Package internal.
+     * @return {@code true} if there are pages whose fill was deferred.
      */
-    @Override
-    public final Object instantiateItem(final ViewGroup container, final int position) {
-        if (Constants.DEBUG) {
-            Log.i("InfiniteViewPager", String.format("instantiating position %s", position));
-        }
-        final PageModel<T> model = createPageModel(position);
-        mPageModels[position] = model;
-        container.addView(model.getParentView());
-        return model;
+    boolean hasPendingFills() {
+        return mPendingFillCount > 0;
     }
 
     /**
-     * fills the page on index {@code position}.
-     * @param position the page index to fill the page.
+     * Package internal. Returns the deferred page that is most likely seen next: pages closer to the center
+     * come first and, on the same distance, the page in {@code direction}.
+     * @param direction the direction of the last page change, {@code 1} for next and {@code -1} for previous.
+     * @return the index of the page or {@code -1} if no fill is pending.
      */
-    void fillPage(final int position) {
-        if (Constants.DEBUG) {
-            Log.d("InfiniteViewPager", "setup Page " + position);
-            printPageModels("before newPage");
-        }
-        final PageModel<T> oldModel = mPageModels[position];
-        final PageModel<T> newModel = createPageModel(position);
-        if (oldModel == null || newModel == null) {
-            Log.w(Constants.LOG_TAG, "fillPage no model found " + oldModel + " " + newModel);
-            return;
+    int getNextPendingFill(final int direction) {
+        if (mPendingFillCount == 0) {
+            return -1;
         }
-        // moving the new created views to the page of the viewpager
-        oldModel.removeAllChildren();
-        for (final View newChild : newModel.getChildren()) {
-            newModel.removeViewFromParent(newChild);
-            oldModel.addChild(newChild);
+        final int center = getCenterPosition();
+        final int first = direction < 0 ? -1 : 1;
+        for (int distance = 0; distance <= center; distance++) {
+            if (mPendingFills[center + first * distance]) {
+                return center + first * distance;
+            }
+            if (mPendingFills[center - first * distance]) {
+                return center - first * distance;
+            }
         }
-
-        mPageModels[position].setIndicator(newModel.getIndicator());
+        return -1;
     }
 
     /**
-     * Creates the internal page model. This method calls the {@link #instantiateItem(Object)} method
-     * that creates the page content.
-     * @param pagePosition the position in the pageModel array between [0..2]
-     * @return a new instance of a page model.
+     * Package internal. Fills all pages whose fill was deferred.
      */
-    private PageModel<T> createPageModel(final int pagePosition) {
-        final T indicator = getIndicatorFromPagePosition(pagePosition);
-        final ViewGroup view = instantiateItem(indicator);
+    void fillPendingPages() {
+        for (int i = 0; i < mPendingFills.length && mPendingFillCount > 0; i++) {
+            if (mPendingFills[i]) {
+                fillPage(i);
+            }
+        }
+    }
 
-        return new PageModel<T>(view, indicator);
+    /**
+     * Package internal. Releases memory at increasing {@code level}: the page cache is evicted, the page pool
+     * is cleared and, from {@code TRIM_MEMORY_RUNNING_CRITICAL} on, the offscreen pages are emptied. Emptied
+     * pages are filled again like deferred pages, see {@link #fillPendingPages()}.
+     * @param level one of the {@code ComponentCallbacks2.TRIM_MEMORY_*} levels.
+     * @param collapsePages {@code false} if the offscreen pages must be kept, e.g. while they are visible.
+     */
+    void trimMemory(final int level, final boolean collapsePages) {
+        if (Constants.DEBUG) {
+            Log.d(Constants.LOG_TAG, "trimming memory, level " + level);
+        }
+        if (mPageCache != null) {
+            mPageCache.evictAll();
+        }
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+            mPagePool.clear();
+        }
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL && collapsePages && hasPages()) {
+            final int center = getCenterPosition();
+            for (int i = 0; i < mPageModels.length; i++) {
+                final PageModel<T> model = mPageModels[i];
+                if (i == center || model == null || !model.hasChildren()) {
+                    continue;
+                }
+                model.removeAllChildren();
+                model.setViewType(PageModel.VIEW_TYPE_NONE);
+                fillOrDefer(i, true);
+            }
+            onPagesChanged();
+        }
     }
 
-    protected final T getCurrentIndicator() {
-        return mCurrentIndicator;
+    /**
+     * Package internal. Looks up how far {@code indicator} is away from the current indicator. Only the pages
+     * of the window and, if the adapter can look them up, the first indicator beyond each edge are considered.
+     * Deferred pages count with the indicator they get once they are filled, the fills stay deferred.
+     * @param indicator the indicator to look up.
+     * @return the offset of {@code indicator} from the current indicator or {@link #NO_OFFSET} if it is
+     * further away.
+     */
+    int getOffsetOf(final T indicator) {
+        final int center = getCenterPosition();
+        final int position = findPosition(indicator);
+        if (position >= 0) {
+            return position - center;
+        }
+        if (!hasRandomAccess()) {
+            return NO_OFFSET;
+        }
+        final int beyond = center + 1;
+        if (indicator.equals(getIndicatorAt(getCurrentIndicator(), beyond)) && isBeyondReachable(1)) {
+            return beyond;
+        }
+        if (indicator.equals(getIndicatorAt(getCurrentIndicator(), -beyond)) && isBeyondReachable(-1)) {
+            return -beyond;
+        }
+        return NO_OFFSET;
     }
 
-    private T getIndicatorFromPagePosition(final int pagePosition) {
-        T indicator = null;
-        switch (pagePosition) {
-            case Constants.PAGE_POSITION_LEFT:
-                indicator = getPreviousIndicator();
-                break;
-            case Constants.PAGE_POSITION_CENTER:
-                indicator = getCurrentIndicator();
-                break;
-            case Constants.PAGE_POSITION_RIGHT:
-                indicator = getNextIndicator();
-                break;
+    /**
+     *
+     * @param direction {@code 1} for next indicators, {@code -1} for previous indicators.
+     * @return {@code true} if the first indicator beyond the window in {@code direction} can be reached.
+     */
+    private boolean isBeyondReachable(final int direction) {
+        final int edge = direction > 0 ? mPageModels.length - 1 : 0;
+        if (edge != (direction > 0 ? getLastReachablePosition() : getFirstReachablePosition())) {
+            return false;
         }
-        return indicator;
+        final T indicator = getWindowIndicator(edge);
+        return hasIndicator(indicator != null ? indicator : getIndicatorFromPagePosition(edge), direction);
     }
 
     /**
@@ -135,6 +1118,15 @@ public abstract class InfinitePagerAdapter<T> extends PagerAdapter {
      * @param to page index to move contents to.
      */
     void movePageContents(final int from, final int to) {
+        final long start = beginOperation("InfiniteViewPager#movePageContents");
+        try {
+            movePageContentsInternal(from, to);
+        } finally {
+            endOperation(PagerMetrics.OPERATION_MOVE, start);
+        }
+    }
+
+    private void movePageContentsInternal(final int from, final int to) {
         final PageModel<T> fromModel = mPageModels[from];
         final PageModel<T> toModel = mPageModels[to];
         if (fromModel == null || toModel == null) {
@@ -148,25 +1140,85 @@ public abstract class InfinitePagerAdapter<T> extends PagerAdapter {
             printPageModels("before");
         }
 
+        if (fromModel.isPlaceholder() || toModel.isPlaceholder()) {
+            // placeholders have no contents to move, the pages change their positions instead
+            mPageModels[from] = toModel;
+            mPageModels[to] = fromModel;
+            mPositionsChanged = true;
+            return;
+        }
 
-        toModel.removeAllChildren();
-        for (View view : fromModel.getChildren()) {
-            fromModel.removeViewFromParent(view);
-            toModel.addChild(view);
+        if (retainsPages()) {
+            // the replaced contents stay in the source page to be cached or rebound by fillPage
+            final T replaced = toModel.getIndicator();
+            toModel.swapChildren(fromModel);
+            toModel.setIndicator(fromModel.getIndicator());
+            fromModel.setIndicator(replaced);
+        } else {
+            toModel.removeAllChildren();
+            final List<View> children = fromModel.getChildren();
+            for (int i = 0, size = children.size(); i < size; i++) {
+                final View view = children.get(i);
+                fromModel.removeViewFromParent(view);
+                toModel.addChild(view);
+            }
+            toModel.setContentFilled(fromModel.isContentFilled());
+            toModel.setIndicator(fromModel.getIndicator());
+            // the source page is empty until it is filled, it no longer shows its indicator
+            fromModel.removeAllChildren();
+            fromModel.setIndicator(null);
         }
 
         if (Constants.DEBUG) {
             printPageModels("transfer");
+            printPageModels("after");
+        }
+    }
+
+    /**
+     * Package internal. Rotates the page models like a ring buffer, so that the model on index {@code i} ends up
+     * on index {@code i + shift}. The page views are kept as they are, only their positions change.
+     * The ViewPager picks up the new positions on {@link #notifyDataSetChanged()}.
+     * @param shift the number of indices to rotate by. Positive values rotate to the right.
+     */
+    void rotatePages(final int shift) {
+        final int count = mPageModels.length;
+        final int distance = ((shift % count) + count) % count;
+        if (distance == 0) {
+            return;
+        }
+        if (Constants.DEBUG) {
+            Log.d("InfiniteViewPager", String.format("Rotating pages by %s", shift));
+            printPageModels("before");
         }
-        mPageModels[to].setIndicator(fromModel.getIndicator());
+        final long start = beginOperation("InfiniteViewPager#rotatePages");
+        reversePageModels(0, count - 1);
+        reversePageModels(0, distance - 1);
+        reversePageModels(distance, count - 1);
+        endOperation(PagerMetrics.OPERATION_MOVE, start);
         if (Constants.DEBUG) {
             printPageModels("after");
         }
     }
 
+    private void reversePageModels(int from, int to) {
+        while (from < to) {
+            final PageModel<T> model = mPageModels[from];
+            mPageModels[from++] = mPageModels[to];
+            mPageModels[to--] = model;
+        }
+    }
+
     void reset() {
+        hideAllPages();
+        if (retainsPages()) {
+            // pages are replaced when they are filled
+            return;
+        }
         for (PageModel<T> pageModel : mPageModels) {
-            pageModel.removeAllChildren();
+            if (pageModel != null) {
+                pageModel.removeAllChildren();
+            }
         }
     }
 
@@ -176,6 +1228,11 @@ public abstract class InfinitePagerAdapter<T> extends PagerAdapter {
      */
     void setCurrentIndicator(final T indicator) {
         mCurrentIndicator = indicator;
+        mBoundsValid = false;
+        mPrefetchShift = NO_OFFSET;
+        if (mIndicatorSequence != null) {
+            mIndicatorSequence.prefetch(indicator, mPageModels.length + mMaxPrefetchDistance);
+        }
     }
 
 
@@ -192,6 +1249,101 @@ public abstract class InfinitePagerAdapter<T> extends PagerAdapter {
      */
     public abstract T getPreviousIndicator();
 
+    /**
+     * Returns the indicator following {@code indicator}, it must not depend on the current indicator.
+     * The default implementation only knows the neighbors of the current indicator, see
+     * {@link #getNextIndicator()}, so override it together with {@link #getPreviousIndicator(Object)} to look up
+     * any other indicator.
+     * @param indicator an indicator.
+     * @return the indicator following {@code indicator}.
+     * @throws UnsupportedOperationException if {@code indicator} is not the current indicator and the method
+     * is not overridden.
+     */
+    public T getNextIndicator(final T indicator) {
+        if (!indicator.equals(getCurrentIndicator())) {
+            throw new UnsupportedOperationException("getNextIndicator(Object) must be overridden.");
+        }
+        return getNextIndicator();
+    }
+
+    /**
+     * Returns the indicator preceding {@code indicator}, see {@link #getNextIndicator(Object)}.
+     * @param indicator an indicator.
+     * @return the indicator preceding {@code indicator}.
+     * @throws UnsupportedOperationException if {@code indicator} is not the current indicator and the method
+     * is not overridden.
+     */
+    public T getPreviousIndicator(final T indicator) {
+        if (!indicator.equals(getCurrentIndicator())) {
+            throw new UnsupportedOperationException("getPreviousIndicator(Object) must be overridden.");
+        }
+        return getPreviousIndicator();
+    }
+
+    /**
+     * Returns the indicator that is {@code offset} pages away from {@code base}. The default implementation
+     * chains {@link #getNextIndicator(Object)} or {@link #getPreviousIndicator(Object)}, so its cost grows with
+     * {@code offset}. Override it if the indicator can be computed directly, e.g. for numbers or dates.
+     * With an {@link IndicatorSequence} set, it steps through the memoized sequence instead.
+     * @param base the indicator to start from.
+     * @param offset the number of pages to move, negative values move to previous pages.
+     * @return the indicator {@code offset} pages away from {@code base}.
+     */
+    public T getIndicatorAt(final T base, final int offset) {
+        if (offset == 0) {
+            return base;
+        }
+        if (mIndicatorSequence != null) {
+            return mIndicatorSequence.getIndicatorAt(base, offset);
+        }
+        T indicator = base;
+        for (int i = 0, steps = Math.abs(offset); i < steps; i++) {
+            indicator = offset < 0 ? getPreviousIndicator(indicator) : getNextIndicator(indicator);
+        }
+        return indicator;
+    }
+
+    /**
+     * Package internal.
+     * @return {@code true} if indicators apart from the current one can be looked up, see
+     * {@link #getNextIndicator(Object)}.
+     */
+    boolean hasRandomAccess() {
+        return mStepsOverridden || mIndicatorSequence != null;
+    }
+
+    /**
+     * Package internal. Checks that indicators apart from the current one can be looked up.
+     * @param feature the feature that looks them up, for the message of the exception.
+     * @throws IllegalStateException if they cannot.
+     */
+    void requireRandomAccess(final String feature) {
+        if (!hasRandomAccess()) {
+            throw new IllegalStateException(feature + " needs getNextIndicator(Object) and "
+                + "getPreviousIndicator(Object), getIndicatorAt(Object, int) or an IndicatorSequence.");
+        }
+    }
+
+    /**
+     * Bounds the pages in the direction of next indicators. Pages beyond the bound are not instantiated and
+     * cannot be scrolled to. By default there is no bound.
+     * @param indicator an indicator.
+     * @return {@code true} if there is a next indicator of {@code indicator}.
+     */
+    public boolean hasNextIndicator(final T indicator) {
+        return true;
+    }
+
+    /**
+     * Bounds the pages in the direction of previous indicators. Pages beyond the bound are not instantiated
+     * and cannot be scrolled to. By default there is no bound.
+     * @param indicator an indicator.
+     * @return {@code true} if there is a previous indicator of {@code indicator}.
+     */
+    public boolean hasPreviousIndicator(final T indicator) {
+        return true;
+    }
+
     /**
      * Instantiates a page.
      * @param indicator the indicator the page should be instantiated with.
@@ -199,6 +1351,340 @@ public abstract class InfinitePagerAdapter<T> extends PagerAdapter {
      */
     public abstract ViewGroup instantiateItem(T indicator);
 
+    /**
+     * Binds a recycled page to {@code indicator}. Only called when recycling is enabled, which requires this
+     * method to be overridden.
+     * @param recycled a page holding the views that {@link #instantiateItem(Object)} created for a page
+     *                 of the same view type.
+     * @param indicator the indicator the page should be bound to.
+     * @see #setRecyclingEnabled(boolean)
+     */
+    public void bindItem(final ViewGroup recycled, final T indicator) {
+        // nop
+    }
+
+    /**
+     * Package internal.
+     * @return {@code true} if this adapter overrides {@link #bindItem(ViewGroup, Object)}.
+     */
+    boolean overridesBindItem() {
+        return overrides(InfinitePagerAdapter.class, "bindItem", ViewGroup.class, Object.class);
+    }
+
+    /**
+     * Package internal.
+     * @param declaringClass the class declaring the default implementation.
+     * @param name the name of the method.
+     * @param parameterTypes the parameter types of the method.
+     * @return {@code true} if the class of this adapter overrides the public method of {@code declaringClass}.
+     */
+    final boolean overrides(final Class<?> declaringClass, final String name, final Class<?>... parameterTypes) {
+        try {
+            return getClass().getMethod(name, parameterTypes).getDeclaringClass() != declaringClass;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Fills the expensive part of a page that {@link #instantiateItem(Object)} or
+     * {@link #bindItem(ViewGroup, Object)} built as a cheap skeleton. It is called once per page and indicator:
+     * right after building the page or, with a content fill threshold, once the page is that far on screen.
+     * @param page the page built for {@code indicator}.
+     * @param indicator the indicator of the page.
+     * @see #setContentFillThreshold(float)
+     */
+    public void fillContent(final ViewGroup page, final T indicator) {
+        // nop
+    }
+
+    /**
+     * Called when the page of {@code indicator} settled fully on screen. Work that only matters while the page
+     * is seen, like animations or periodic refreshes, can be started here.
+     * <p>
+     * The pager may move the contents of a page to another page view, so work should be tracked by the
+     * indicator and not by the page view.
+     * @param indicator the indicator of the page.
+     * @param page the page view currently showing {@code indicator}.
+     */
+    public void onPageVisible(final T indicator, final ViewGroup page) {
+        // nop
+    }
+
+    /**
+     * Called on every scroll step for each page that is only partially on screen.
+     * @param indicator the indicator of the page.
+     * @param visibleFraction the fraction of the page that is on screen, between 0 and 1 exclusive.
+     */
+    public void onPagePartiallyVisible(final T indicator, final float visibleFraction) {
+        // nop
+    }
+
+    /**
+     * Called when a page that was visible or partially visible left the screen, or before its contents are
+     * replaced. Work started in {@link #onPageVisible(Object, ViewGroup)} should be paused here.
+     * @param indicator the indicator of the page.
+     * @param page the page view still showing {@code indicator}, or {@code null} if the page is gone already.
+     */
+    public void onPageHidden(final T indicator, final ViewGroup page) {
+        // nop
+    }
+
+    /**
+     * Defers {@link #fillContent(ViewGroup, Object)} until a page is scrolled on screen by more than
+     * {@code fraction} of its width. Offscreen pages the user never scrolls to only get their skeleton.
+     * The current page is always filled.
+     * @param fraction the visible fraction of a page in [0..1], {@code 0} fills the content right away.
+     */
+    public final void setContentFillThreshold(final float fraction) {
+        mContentFillThreshold = Math.max(0f, Math.min(1f, fraction));
+    }
+
+    public final float getContentFillThreshold() {
+        return mContentFillThreshold;
+    }
+
+    /**
+     *
+     * @param indicator the indicator of a page.
+     * @return the view type of the page, pages are only recycled into pages of the same view type.
+     */
+    public int getItemViewType(final T indicator) {
+        return 0;
+    }
+
+    /**
+     * Enables or disables recycling of pages. When enabled, page changes rebind the existing page views
+     * through {@link #bindItem(android.view.ViewGroup, Object)} instead of calling
+     * {@link #instantiateItem(Object)}.
+     * @param enabled {@code true} to recycle pages.
+     * @throws IllegalStateException if recycling is enabled and {@code bindItem} is not overridden.
+     */
+    public final void setRecyclingEnabled(final boolean enabled) {
+        if (enabled && !overridesBindItem()) {
+            throw new IllegalStateException(getClass().getName() + " must override bindItem to recycle pages.");
+        }
+        mRecyclingEnabled = enabled;
+        if (!enabled && mSharedPagePool == null) {
+            mPagePool.clear();
+        }
+    }
+
+    public final boolean isRecyclingEnabled() {
+        return mRecyclingEnabled;
+    }
+
+    /**
+     * Replaces the own page pool of this adapter with a pool that is shared with other adapters.
+     * The pool is only used while recycling is enabled.
+     * @param pool the shared pool or {@code null} to use an own pool again.
+     * @see #setRecyclingEnabled(boolean)
+     */
+    public final void setSharedPagePool(final SharedPagePool pool) {
+        if (pool == mSharedPagePool) {
+            return;
+        }
+        if (mSharedPagePool == null) {
+            mPagePool.clear();
+        }
+        mSharedPagePool = pool;
+        mPagePool = pool != null ? pool : new PagePool();
+    }
+
+    public final SharedPagePool getSharedPagePool() {
+        return mSharedPagePool;
+    }
+
+    /**
+     * Enables a cache of pages that left the window, so swiping back to them does not instantiate them again.
+     * @param maxSize the maximum total weight of the cached pages, see {@link #getPageWeight(Object, ViewGroup)}.
+     *                {@code 0} disables the cache.
+     */
+    public final void setPageCacheSize(final int maxSize) {
+        if (mPageCache != null) {
+            mPageCache.evictAll();
+        }
+        mPageCache = maxSize > 0 ? new PageCache<T>(this, maxSize) : null;
+    }
+
+    /**
+     *
+     * @param indicator the indicator of a cached page.
+     * @param page the cached page.
+     * @return the weight of the page in the page cache. By default each page weighs {@code 1}.
+     * @see #setPageCacheSize(int)
+     */
+    protected int getPageWeight(final T indicator, final ViewGroup page) {
+        return 1;
+    }
+
+    /**
+     * Called when a page is dropped from the page cache.
+     * @param indicator the indicator of the page.
+     * @param page the dropped page.
+     */
+    protected void onPageEvicted(final T indicator, final ViewGroup page) {
+        // nop
+    }
+
+    /**
+     * Enables prefetching. While the user scrolls, {@link #onPrefetch(Object, int)} is called for up to
+     * {@code maxDistance} indicators beyond the window in the scroll direction. The faster the scroll, the
+     * more indicators are prefetched.
+     * @param maxDistance the maximum number of indicators to prefetch, {@code 0} disables prefetching.
+     * @throws IllegalStateException if prefetching is enabled and the adapter cannot look up indicators apart
+     * from the current one, see {@link #getNextIndicator(Object)}.
+     */
+    public final void setMaxPrefetchDistance(final int maxDistance) {
+        if (maxDistance > 0) {
+            requireRandomAccess("Prefetching");
+        }
+        mMaxPrefetchDistance = Math.max(0, maxDistance);
+        if (mMaxPrefetchDistance == 0) {
+            cancelPrefetches();
+        }
+    }
+
+    public final int getMaxPrefetchDistance() {
+        return mMaxPrefetchDistance;
+    }
+
+    /**
+     * Sets a sequence that memoizes the indicators and computes them ahead on a background thread. Use it if
+     * {@link #getNextIndicator()} and {@link #getPreviousIndicator()} are expensive. The sequence is used by
+     * the default {@link #getIndicatorAt(Object, int)}, so it has no effect if that method is overridden.
+     * @param sequence the sequence or {@code null} to step with the adapter methods.
+     * @throws IllegalStateException if the sequence is removed while prefetching or a window of more than
+     * three pages needs it.
+     */
+    public void setIndicatorSequence(final IndicatorSequence<T> sequence) {
+        if (sequence == null && !mStepsOverridden && (mMaxPrefetchDistance > 0 || getOffscreenPageLimit() > 1)) {
+            throw new IllegalStateException("The window and prefetching need the indicator sequence.");
+        }
+        mIndicatorSequence = sequence;
+        if (sequence != null) {
+            sequence.prefetch(getCurrentIndicator(), mPageModels.length + mMaxPrefetchDistance);
+        }
+    }
+
+    public IndicatorSequence<T> getIndicatorSequence() {
+        return mIndicatorSequence;
+    }
+
+    /**
+     * Called ahead of time for an indicator the user is about to scroll to. Start loading its data here, so it
+     * is ready once {@link #instantiateItem(Object)} or {@link #bindItem(ViewGroup, Object)} is called.
+     * @param indicator the indicator to prefetch.
+     * @param distance the number of pages the indicator is away from the edge of the window.
+     * @see #setMaxPrefetchDistance(int)
+     */
+    public void onPrefetch(final T indicator, final int distance) {
+        // nop
+    }
+
+    /**
+     * Called when a prefetched indicator is no longer expected to be reached, e.g. because the scroll
+     * direction changed.
+     * @param indicator the indicator whose prefetch should be cancelled.
+     */
+    public void onCancelPrefetch(final T indicator) {
+        // nop
+    }
+
+    /**
+     * Package internal. Prefetches the {@code count} indicators beyond the window in {@code direction}.
+     * Indicators that are already prefetched are not prefetched again, the others are cancelled. After a page
+     * change in the same direction, the prefetched indicators are reused instead of being looked up again.
+     * @param direction {@code 1} for next indicators, {@code -1} for previous indicators.
+     * @param count the number of indicators to prefetch.
+     */
+    void prefetch(final int direction, final int count) {
+        if (direction == mPrefetchDirection && count == mPrefetchCount && mPrefetchShift == 0) {
+            return;
+        }
+        final int shift = direction == mPrefetchDirection ? mPrefetchShift : NO_OFFSET;
+        mPrefetchShift = 0;
+        mPrefetchDirection = direction;
+        mPrefetchCount = count;
+        final int limit = getOffscreenPageLimit();
+        final ArrayList<T> prefetched = mPrefetchScrap;
+        prefetched.clear();
+        for (int distance = 1; distance <= count; distance++) {
+            if (distance == 1 && !isBeyondReachable(direction)) {
+                break;
+            }
+            // the prefetched indicators are ordered by their distance from the window before it moved
+            final int reused = shift != NO_OFFSET ? distance - 1 + direction * shift : -1;
+            final T indicator = reused >= 0 && reused < mPrefetched.size() ? mPrefetched.get(reused)
+                : getIndicatorAt(getCurrentIndicator(), direction * (limit + distance));
+            prefetched.add(indicator);
+            if (!mPrefetched.contains(indicator)) {
+                onPrefetch(indicator, distance);
+            }
+            if (!hasIndicator(indicator, direction)) {
+                break;
+            }
+        }
+        for (int i = 0, size = mPrefetched.size(); i < size; i++) {
+            final T indicator = mPrefetched.get(i);
+            if (!prefetched.contains(indicator) && !isInWindow(indicator)) {
+                onCancelPrefetch(indicator);
+            }
+        }
+        mPrefetchScrap = mPrefetched;
+        mPrefetched = prefetched;
+    }
+
+    /**
+     * Package internal. Cancels all prefetched indicators that did not make it into the window.
+     */
+    void cancelPrefetches() {
+        for (int i = 0, size = mPrefetched.size(); i < size; i++) {
+            final T indicator = mPrefetched.get(i);
+            if (!isInWindow(indicator)) {
+                onCancelPrefetch(indicator);
+            }
+        }
+        mPrefetched.clear();
+        mPrefetchShift = NO_OFFSET;
+        mPrefetchCount = 0;
+    }
+
+    /**
+     * Enables or disables page rotation. When enabled, a page change reorders the pages of the ViewPager
+     * instead of moving their child views from one page to another.
+     * @param enabled {@code true} to rotate pages.
+     */
+    public final void setPageRotationEnabled(final boolean enabled) {
+        mPageRotationEnabled = enabled;
+    }
+
+    public final boolean isPageRotationEnabled() {
+        return mPageRotationEnabled;
+    }
+
+    /**
+     * Writes {@code indicator} to {@code dest} in a compact binary form. It is used instead of
+     * {@link #getStringRepresentation(Object)} to save the instance state.
+     * @param indicator the indicator to write.
+     * @param dest the parcel to write to.
+     * @return {@code true} if the indicator was written, {@code false} if the string representation should be
+     * used. By default {@code false}.
+     * @see #readIndicator(android.os.Parcel)
+     */
+    public boolean writeIndicator(final T indicator, final Parcel dest) {
+        return false;
+    }
+
+    /**
+     * Reads an indicator written by {@link #writeIndicator(Object, android.os.Parcel)}.
+     * @param source the parcel to read from.
+     * @return the indicator.
+     */
+    public T readIndicator(final Parcel source) {
+        return getCurrentIndicator();
+    }
+
     /**
      *
      * @param currentIndicator the current value of the indicator.
@@ -220,13 +1706,28 @@ public abstract class InfinitePagerAdapter<T> extends PagerAdapter {
 
     @Override
     public final int getCount() {
-        return PAGE_COUNT;
+        return mPageModels.length;
+    }
+
+    @Override
+    public final int getItemPosition(final Object object) {
+        for (int i = 0; i < mPageModels.length; i++) {
+            if (mPageModels[i] == object) {
+                return i;
+            }
+        }
+        return POSITION_NONE;
     }
 
     @Override
     public void destroyItem(final ViewGroup container, final int position, final Object object) {
         final PageModel model = (PageModel) object;
         container.removeView(model.getParentView());
+        if (mRecyclingEnabled && mPageModels[position] == model) {
+            // the page is released for good, e.g. because the adapter was replaced.
+            mPageModels[position] = null;
+            mPagePool.release(model);
+        }
     }
 
     @Override
@@ -237,7 +1738,7 @@ public abstract class InfinitePagerAdapter<T> extends PagerAdapter {
     // Debug related methods
 
     private void printPageModels(final String tag) {
-        for (int i = 0; i < PAGE_COUNT; i++) {
+        for (int i = 0; i < mPageModels.length; i++) {
             printPageModel(tag, mPageModels[i], i);
         }
     }
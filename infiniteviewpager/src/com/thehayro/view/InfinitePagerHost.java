@@ -0,0 +1,154 @@
+/*
+ * Copyright (C) 2013 Onur-Hayri Bakici
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thehayro.view;
+
+import android.view.ViewGroup;
+
+/**
+ * Connects a pager other than the {@link InfiniteViewPager} to an {@link InfinitePagerAdapter}. The host keeps
+ * the current indicator of the adapter, dispatches the page change events to the listeners and the page
+ * visibility callbacks to the adapter. The pager maps its pages onto indicators on its own.
+ * <p>
+ * Must be used on the main thread.
+ * @hide Used by the pager engines built on this library, e.g. the RecyclerView engine. Apps use the pagers.
+ */
+@SuppressWarnings("unchecked")
+public final class InfinitePagerHost {
+
+    private final PageChangeDispatcher mDispatcher = new PageChangeDispatcher();
+
+    private InfinitePagerAdapter mAdapter;
+
+    /**
+     * Sets the adapter providing the pages. The pages of the previous adapter are hidden.
+     * @param adapter the adapter or {@code null}.
+     * @param pager the name of the pager, for the message of the exception.
+     * @throws IllegalStateException if the adapter cannot look up indicators apart from the current one, see
+     * {@link InfinitePagerAdapter#getNextIndicator(Object)}.
+     */
+    public void setAdapter(final InfinitePagerAdapter adapter, final String pager) {
+        if (adapter != null) {
+            adapter.requireRandomAccess(pager);
+        }
+        if (mAdapter != null) {
+            mAdapter.hideAllPages();
+        }
+        mAdapter = adapter;
+    }
+
+    public InfinitePagerAdapter getAdapter() {
+        return mAdapter;
+    }
+
+    public Object getCurrentIndicator() {
+        return mAdapter.getCurrentIndicator();
+    }
+
+    /**
+     * Makes {@code indicator} the current indicator of the adapter and dispatches its selection.
+     * @param indicator the indicator of the selected page.
+     */
+    public void selectIndicator(final Object indicator) {
+        mAdapter.setCurrentIndicator(indicator);
+        if (mDispatcher.hasListeners(InfiniteViewPager.EVENT_PAGE_SELECTED)) {
+            mDispatcher.dispatchPageSelected(mAdapter, 0);
+        }
+    }
+
+    /**
+     *
+     * @param indicator an indicator.
+     * @param direction {@code 1} for next indicators, {@code -1} for previous indicators.
+     * @return {@code true} if the adapter has an indicator following {@code indicator} in {@code direction}.
+     */
+    public boolean hasIndicator(final Object indicator, final int direction) {
+        return mAdapter.hasIndicator(indicator, direction);
+    }
+
+    /**
+     * Dispatches a scroll step of the current page.
+     * @param positionOffset the fraction of the page to the right of the current page that is on screen.
+     * @param positionOffsetPixels the same offset in pixels.
+     */
+    public void dispatchPageScrolled(final float positionOffset, final int positionOffsetPixels) {
+        if (mAdapter != null && mDispatcher.hasListeners(InfiniteViewPager.EVENT_PAGE_SCROLLED)) {
+            mDispatcher.dispatchPageScrolled(mAdapter, 0, positionOffset, positionOffsetPixels);
+        }
+    }
+
+    /**
+     *
+     * @param state one of the {@code ViewPager.SCROLL_STATE_*} values.
+     */
+    public void dispatchPageScrollStateChanged(final int state) {
+        if (mDispatcher.hasListeners(InfiniteViewPager.EVENT_PAGE_SCROLL_STATE_CHANGED)) {
+            mDispatcher.dispatchPageScrollStateChanged(state);
+        }
+    }
+
+    /**
+     * Dispatches the visibility callbacks for the pages on screen, pages that were shown before and are
+     * neither {@code left} nor {@code right} are hidden.
+     * @param left the indicator of the left visible page or {@code null} if there is none.
+     * @param leftPage the page view of {@code left}.
+     * @param right the indicator of the right visible page or {@code null} if there is none.
+     * @param rightPage the page view of {@code right}.
+     * @param positionOffset the fraction of the right visible page that is on screen.
+     */
+    public void updatePageVisibility(final Object left, final ViewGroup leftPage, final Object right,
+                                     final ViewGroup rightPage, final float positionOffset) {
+        mAdapter.updatePageVisibility(left, leftPage, right, rightPage, positionOffset);
+    }
+
+    /**
+     * Hides the page of {@code indicator} if it is shown, e.g. before its view is bound to another indicator.
+     * @param indicator the indicator of the page.
+     * @param page the page view still showing {@code indicator} or {@code null} if the page is gone already.
+     */
+    public void hidePage(final Object indicator, final ViewGroup page) {
+        mAdapter.dispatchPageHidden(indicator, page);
+    }
+
+    /**
+     * Hides all pages on screen, e.g. when the pager is detached.
+     */
+    public void hideAllPages() {
+        if (mAdapter != null) {
+            mAdapter.hideAllPages();
+        }
+    }
+
+    /**
+     * Adds a listener for the page change {@code events}.
+     * @param listener the listener.
+     * @param events the {@code InfiniteViewPager.EVENT_*} flags of the events to listen to.
+     */
+    public void addListener(final InfiniteViewPager.OnInfinitePageChangeListener<?> listener, final int events) {
+        mDispatcher.add(listener, events);
+    }
+
+    public void addListener(final InfiniteViewPager.OnIntInfinitePageChangeListener listener, final int events) {
+        mDispatcher.add(listener, events);
+    }
+
+    public void addListener(final InfiniteViewPager.OnLongInfinitePageChangeListener listener, final int events) {
+        mDispatcher.add(listener, events);
+    }
+
+    public void removeListener(final Object listener) {
+        mDispatcher.remove(listener);
+    }
+}
@@ -17,21 +17,29 @@
 package com.thehayro.view;
 
 import static com.thehayro.internal.Constants.ADAPTER_STATE;
+import static com.thehayro.internal.Constants.ADAPTER_STATE_BINARY;
 import static com.thehayro.internal.Constants.LOG_TAG;
 import static com.thehayro.internal.Constants.PAGE_POSITION_CENTER;
-import static com.thehayro.internal.Constants.PAGE_POSITION_LEFT;
-import static com.thehayro.internal.Constants.PAGE_POSITION_RIGHT;
+import static com.thehayro.internal.Constants.PAGE_STATE;
 import static com.thehayro.internal.Constants.SUPER_STATE;
 
 import com.thehayro.internal.Constants;
 
+import android.content.ComponentCallbacks2;
 import android.content.Context;
+import android.content.res.Configuration;
+import android.os.Build;
 import android.os.Bundle;
+import android.os.Parcel;
 import android.os.Parcelable;
+import android.os.SystemClock;
 import android.support.v4.view.PagerAdapter;
+import android.support.v4.view.ViewCompat;
 import android.support.v4.view.ViewPager;
 import android.util.AttributeSet;
 import android.util.Log;
+import android.util.SparseArray;
+import android.view.View;
 
 /**
  * ViewPager that allows infinite scrolling.
@@ -40,8 +48,296 @@ public class InfiniteViewPager extends ViewPager {
 
     private static final String TAG = "InfiniteViewPager";
 
+    /**
+     * Event flag for {@link OnInfinitePageChangeListener#onPageScrolled(Object, float, int)}.
+     */
+    public static final int EVENT_PAGE_SCROLLED = 1;
+
+    /**
+     * Event flag for {@link OnInfinitePageChangeListener#onPageSelected(Object)}.
+     */
+    public static final int EVENT_PAGE_SELECTED = 1 << 1;
+
+    /**
+     * Event flag for {@link OnInfinitePageChangeListener#onPageScrollStateChanged(int)}.
+     */
+    public static final int EVENT_PAGE_SCROLL_STATE_CHANGED = 1 << 2;
+
+    public static final int EVENT_ALL = EVENT_PAGE_SCROLLED | EVENT_PAGE_SELECTED | EVENT_PAGE_SCROLL_STATE_CHANGED;
+
+    /**
+     * How far ahead (in milliseconds of scrolling at the current velocity) indicators are prefetched.
+     */
+    private static final float PREFETCH_LOOKAHEAD_MS = 500f;
+
     private int mCurrPosition = PAGE_POSITION_CENTER;
+    private InfinitePagerAdapter mAdapter;
+    private final PageChangeDispatcher mDispatcher = new PageChangeDispatcher();
     private OnInfinitePageChangeListener mListener;
+    private OnIntInfinitePageChangeListener mIntListener;
+    private OnLongInfinitePageChangeListener mLongListener;
+
+    private int mScrollState = SCROLL_STATE_IDLE;
+    private long mSwipeCoalescingDelay;
+    private long mFillBudgetNanos;
+    private int mLastShiftDirection = 1;
+    private long mSettleStart;
+    private SharedPagePool mSharedPagePool;
+    private boolean mTrimMemoryAutomatically;
+    private ComponentCallbacks2 mTrimMemoryCallbacks;
+    private boolean mScrollingLayersEnabled;
+    /**
+     * The pages put on hardware layers while scrolling and the layer types they had before.
+     */
+    private View[] mLayerPages = new View[0];
+    private int[] mPreviousLayerTypes = new int[0];
+    private int mLayerPageCount;
+    private boolean mRecentering;
+    private float mLastScrollPosition;
+    private long mLastScrollTime;
+
+    private final OnPageChangeListener mPageChangeListener = new OnPageChangeListener() {
+        @Override
+        public void onPageScrolled(int i, float positionOffset, int positionOffsetPixels) {
+            if (mAdapter != null && mAdapter.getMaxPrefetchDistance() > 0) {
+                updatePrefetch(i + positionOffset);
+            }
+            if (mAdapter != null && mAdapter.getContentFillThreshold() > 0) {
+                updateContentFill(i, positionOffset);
+            }
+            if (mAdapter != null) {
+                mAdapter.updatePageVisibility(i, positionOffset);
+            }
+            if (mAdapter != null && mDispatcher.hasListeners(EVENT_PAGE_SCROLLED)) {
+                mDispatcher.dispatchPageScrolled(mAdapter, mCurrPosition - mAdapter.getCenterPosition(),
+                    positionOffset, positionOffsetPixels);
+            }
+        }
+
+        @Override
+        public void onPageSelected(int position) {
+            if (Constants.DEBUG) {
+                Log.d(TAG, "on page " + position);
+            }
+            if (mRecentering) {
+                // the pages were shifted, the center page shows the indicator that was selected already
+                mCurrPosition = position;
+                return;
+            }
+            if (mAdapter != null && (position < mAdapter.getFirstReachablePosition()
+                || position > mAdapter.getLastReachablePosition())) {
+                // a fling towards a bound, the scroll stops at the last page that can be reached
+                mCurrPosition = Math.max(mAdapter.getFirstReachablePosition(),
+                    Math.min(mAdapter.getLastReachablePosition(), position));
+                return;
+            }
+            mCurrPosition = position;
+            if (mAdapter != null && mDispatcher.hasListeners(EVENT_PAGE_SELECTED)) {
+                // the pages may not be shifted yet, see setSwipeCoalescingDelay
+                mDispatcher.dispatchPageSelected(mAdapter, position - mAdapter.getCenterPosition());
+            }
+        }
+
+        @Override
+        public void onPageScrollStateChanged(final int state) {
+            mScrollState = state;
+            mLastScrollTime = 0;
+            if (mDispatcher.hasListeners(EVENT_PAGE_SCROLL_STATE_CHANGED)) {
+                mDispatcher.dispatchPageScrollStateChanged(state);
+            }
+            final InfinitePagerAdapter adapter = mAdapter;
+            if (adapter == null) {
+                return;
+            }
+
+            if (state == ViewPager.SCROLL_STATE_DRAGGING) {
+                // another swipe of the burst, the pending shift is coalesced with it
+                removeCallbacks(mShiftRunnable);
+                // the user may reach any page now
+                adapter.fillPendingPages();
+                endSettle();
+                promoteScrollingLayers();
+            } else if (state == ViewPager.SCROLL_STATE_SETTLING) {
+                promoteScrollingLayers();
+            } else if (state == ViewPager.SCROLL_STATE_IDLE) {
+                releaseScrollingLayers();
+                mSettleStart = adapter.beginTiming();
+                final int center = adapter.getCenterPosition();
+                final int offset = mCurrPosition - center;
+                if (mSwipeCoalescingDelay > 0 && offset != 0 && Math.abs(offset) < center) {
+                    // there is still room for another swipe in both directions
+                    removeCallbacks(mShiftRunnable);
+                    postDelayed(mShiftRunnable, mSwipeCoalescingDelay);
+                } else {
+                    shiftToCurrentItem();
+                }
+            }
+        }
+    };
+
+    private final Runnable mShiftRunnable = new Runnable() {
+        @Override
+        public void run() {
+            shiftToCurrentItem();
+        }
+    };
+
+    /**
+     * Shifts the pages by the net number of pages moved since the last shift, so that the current item is the
+     * center page again.
+     */
+    private void shiftToCurrentItem() {
+        removeCallbacks(mShiftRunnable);
+        final InfinitePagerAdapter adapter = mAdapter;
+        if (adapter == null) {
+            return;
+        }
+        final int offset = mCurrPosition - adapter.getCenterPosition();
+        boolean positionsChanged = false;
+        if (offset != 0) {
+            mLastShiftDirection = offset > 0 ? 1 : -1;
+            positionsChanged = adapter.shiftPages(offset, mFillBudgetNanos > 0);
+        }
+        recenter(positionsChanged);
+        updatePageVisibility();
+        scheduleDeferredFills();
+        if (!adapter.hasPendingFills()) {
+            endSettle();
+        }
+    }
+
+    /**
+     * Makes the center page the current item after the pages were shifted, without dispatching its selection.
+     * @param positionsChanged {@code true} if the pages changed their positions, so the ViewPager has to pick
+     *                         up the new positions first.
+     */
+    private void recenter(final boolean positionsChanged) {
+        mRecentering = true;
+        try {
+            if (positionsChanged) {
+                // remaps the page positions, the visible page becomes the center page
+                mAdapter.notifyDataSetChanged();
+            }
+            setCurrentItem(getCenterPosition(), false);
+        } finally {
+            mRecentering = false;
+        }
+    }
+
+    /**
+     * Dispatches the visibility callbacks of the adapter for the current item, unless a scroll dispatches
+     * them anyway.
+     */
+    private void updatePageVisibility() {
+        final InfinitePagerAdapter adapter = mAdapter;
+        if (adapter != null && mScrollState == SCROLL_STATE_IDLE && adapter.hasPages()) {
+            adapter.updatePageVisibility(getCurrentItem(), 0f);
+        }
+    }
+
+    /**
+     * Fills the content of the pages that are scrolled on screen beyond the content fill threshold.
+     * @param position the index of the left visible page.
+     * @param positionOffset the fraction of the right visible page that is on screen.
+     */
+    private void updateContentFill(final int position, final float positionOffset) {
+        final InfinitePagerAdapter adapter = mAdapter;
+        final float threshold = adapter.getContentFillThreshold();
+        if (1f - positionOffset >= threshold) {
+            adapter.fillContentIfNeeded(position);
+        }
+        if (positionOffset >= threshold && position + 1 < adapter.getCount()) {
+            adapter.fillContentIfNeeded(position + 1);
+        }
+    }
+
+    /**
+     * Renders the current page and its neighbors into hardware layers, so scrolling only composes them.
+     */
+    private void promoteScrollingLayers() {
+        final InfinitePagerAdapter adapter = mAdapter;
+        if (!mScrollingLayersEnabled || adapter == null || !adapter.hasPages()) {
+            return;
+        }
+        final int first = Math.max(0, mCurrPosition - 1);
+        final int last = Math.min(adapter.getCount() - 1, mCurrPosition + 1);
+        for (int i = first; i <= last; i++) {
+            final View page = adapter.getPageView(i);
+            if (page == null) {
+                continue;
+            }
+            final int layerType = ViewCompat.getLayerType(page);
+            // pages on a hardware layer already were promoted before or keep the layer of the app
+            if (layerType != ViewCompat.LAYER_TYPE_HARDWARE) {
+                addLayerPage(page, layerType);
+                ViewCompat.setLayerType(page, ViewCompat.LAYER_TYPE_HARDWARE, null);
+            }
+        }
+    }
+
+    private void addLayerPage(final View page, final int previousLayerType) {
+        if (mLayerPageCount == mLayerPages.length) {
+            // at most every page of the window, so the arrays only grow on the first scrolls
+            final int capacity = Math.max(4, 2 * mLayerPageCount);
+            final View[] pages = new View[capacity];
+            final int[] layerTypes = new int[capacity];
+            System.arraycopy(mLayerPages, 0, pages, 0, mLayerPageCount);
+            System.arraycopy(mPreviousLayerTypes, 0, layerTypes, 0, mLayerPageCount);
+            mLayerPages = pages;
+            mPreviousLayerTypes = layerTypes;
+        }
+        mLayerPages[mLayerPageCount] = page;
+        mPreviousLayerTypes[mLayerPageCount] = previousLayerType;
+        mLayerPageCount++;
+    }
+
+    /**
+     * Gives the pages put on hardware layers by {@link #promoteScrollingLayers()} their previous layer types
+     * back, unless the layer types were changed since.
+     */
+    private void releaseScrollingLayers() {
+        for (int i = 0; i < mLayerPageCount; i++) {
+            final View page = mLayerPages[i];
+            if (ViewCompat.getLayerType(page) == ViewCompat.LAYER_TYPE_HARDWARE) {
+                ViewCompat.setLayerType(page, mPreviousLayerTypes[i], null);
+            }
+            mLayerPages[i] = null;
+        }
+        mLayerPageCount = 0;
+    }
+
+    private void endSettle() {
+        if (mSettleStart != 0 && mAdapter != null) {
+            mAdapter.endTiming(PagerMetrics.OPERATION_SETTLE, mSettleStart);
+        }
+        mSettleStart = 0;
+    }
+
+    private final Runnable mFillRunnable = new Runnable() {
+        @Override
+        public void run() {
+            final InfinitePagerAdapter adapter = mAdapter;
+            if (adapter == null) {
+                return;
+            }
+            final long start = System.nanoTime();
+            do {
+                final int position = adapter.getNextPendingFill(mLastShiftDirection);
+                if (position < 0) {
+                    endSettle();
+                    return;
+                }
+                adapter.fillPage(position);
+            } while (System.nanoTime() - start < mFillBudgetNanos);
+            scheduleDeferredFills();
+        }
+    };
+
+    private void scheduleDeferredFills() {
+        if (mAdapter != null && mAdapter.hasPendingFills()) {
+            ViewCompat.postOnAnimation(this, mFillRunnable);
+        }
+    }
 
     public InfiniteViewPager(Context context) {
         this(context, null);
@@ -51,132 +347,417 @@ public class InfiniteViewPager extends ViewPager {
         super(context, attrs);
     }
 
+    /**
+     * Saves the current indicator and the view hierarchy state of every page. The indicator is written in
+     * binary form if the adapter supports it, see {@link InfinitePagerAdapter#writeIndicator(Object, Parcel)}.
+     */
     @Override
     public Parcelable onSaveInstanceState() {
-        final InfinitePagerAdapter adapter = (InfinitePagerAdapter) getAdapter();
+        if (mScrollState == SCROLL_STATE_IDLE) {
+            shiftToCurrentItem();
+        }
+        final InfinitePagerAdapter adapter = mAdapter;
         if (adapter == null) {
             Log.d(LOG_TAG, " onSaveInstanceState adapter == null");
             return super.onSaveInstanceState();
         }
         Bundle bundle = new Bundle();
         bundle.putParcelable(SUPER_STATE, super.onSaveInstanceState());
-        bundle.putString(ADAPTER_STATE, adapter.getStringRepresentation(adapter.getCurrentIndicator()));
+        final Parcel parcel = Parcel.obtain();
+        try {
+            if (adapter.writeIndicator(adapter.getCurrentIndicator(), parcel)) {
+                bundle.putByteArray(ADAPTER_STATE_BINARY, parcel.marshall());
+            } else {
+                bundle.putString(ADAPTER_STATE, adapter.getStringRepresentation(adapter.getCurrentIndicator()));
+            }
+        } finally {
+            parcel.recycle();
+        }
+        final int center = adapter.getCenterPosition();
+        for (int i = 0; i < adapter.getCount(); i++) {
+            final SparseArray<Parcelable> pageState = adapter.savePageState(i);
+            if (pageState != null) {
+                bundle.putSparseParcelableArray(PAGE_STATE + (i - center), pageState);
+            }
+        }
 
         return bundle;
     }
 
     @Override
     public void onRestoreInstanceState(final Parcelable state) {
-        final InfinitePagerAdapter adapter = (InfinitePagerAdapter) getAdapter();
+        final InfinitePagerAdapter adapter = mAdapter;
+        if (!(state instanceof Bundle)) {
+            super.onRestoreInstanceState(state);
+            return;
+        }
+        final Bundle bundle = (Bundle) state;
+        bundle.setClassLoader(getClass().getClassLoader());
         if (adapter == null) {
             if (Constants.DEBUG) {
                 Log.w(LOG_TAG, "onRestoreInstanceState adapter == null");
             }
-            super.onRestoreInstanceState(state);
+            super.onRestoreInstanceState(bundle.getParcelable(SUPER_STATE));
             return;
         }
-        if (state instanceof Bundle) {
-            Bundle bundle = (Bundle) state;
-            final String representation = bundle.getString(ADAPTER_STATE);
-            final Object c = adapter.convertToIndicator(representation);
+        final Object c;
+        final byte[] binary = bundle.getByteArray(ADAPTER_STATE_BINARY);
+        if (binary != null) {
+            final Parcel parcel = Parcel.obtain();
+            try {
+                parcel.unmarshall(binary, 0, binary.length);
+                parcel.setDataPosition(0);
+                c = adapter.readIndicator(parcel);
+            } finally {
+                parcel.recycle();
+            }
+        } else {
+            c = adapter.convertToIndicator(bundle.getString(ADAPTER_STATE));
+        }
+        if (adapter.hasPages()) {
+            setCurrentIndicator(c);
+        } else {
+            // the pages are instantiated with the restored indicator
             adapter.setCurrentIndicator(c);
-            super.onRestoreInstanceState(bundle.getParcelable(SUPER_STATE));
-            return;
         }
-        super.onRestoreInstanceState(state);
+        final int center = adapter.getCenterPosition();
+        for (int i = 0; i < adapter.getCount(); i++) {
+            final SparseArray<Parcelable> pageState = bundle.getSparseParcelableArray(PAGE_STATE + (i - center));
+            if (pageState != null) {
+                adapter.restorePageState(i, pageState);
+            }
+        }
+        super.onRestoreInstanceState(bundle.getParcelable(SUPER_STATE));
     }
 
-    private void initInfiniteViewPager() {
-        setCurrentItem(PAGE_POSITION_CENTER);
-        setOnPageChangeListener(new OnPageChangeListener() {
-            @Override
-            public void onPageScrolled(int i, float positionOffset, int positionOffsetPixels) {
-                if (mListener != null && getAdapter() != null) {
-                    final InfinitePagerAdapter adapter = (InfinitePagerAdapter) getAdapter();
-                    mListener.onPageScrolled(adapter.getCurrentIndicator(), positionOffset, positionOffsetPixels);
-                }
-            }
+    /**
+     * The pages save their state in {@link #onSaveInstanceState()}, as the views of different pages share
+     * their ids.
+     */
+    @Override
+    protected void dispatchSaveInstanceState(final SparseArray<Parcelable> container) {
+        dispatchFreezeSelfOnly(container);
+    }
 
-            @Override
-            public void onPageSelected(int position) {
-                mCurrPosition = position;
-                if (Constants.DEBUG) {
-                    Log.d(TAG, "on page " + position);
-                }
-                if (mListener != null && getAdapter() != null) {
-                    final InfinitePagerAdapter adapter = (InfinitePagerAdapter) getAdapter();
-                    mListener.onPageSelected(adapter.getCurrentIndicator());
-                }
-            }
+    @Override
+    protected void dispatchRestoreInstanceState(final SparseArray<Parcelable> container) {
+        dispatchThawSelfOnly(container);
+    }
 
-            @Override
-            public void onPageScrollStateChanged(final int state) {
-                if (mListener != null) {
-                    mListener.onPageScrollStateChanged(state);
-                }
-                final InfinitePagerAdapter adapter = (InfinitePagerAdapter) getAdapter();
-                if (adapter == null) {
-                    return;
-                }
+    private void initInfiniteViewPager() {
+        mCurrPosition = getCenterPosition();
+        setCurrentItem(mCurrPosition);
+        setOnPageChangeListener(mPageChangeListener);
+    }
 
-                if (state == ViewPager.SCROLL_STATE_IDLE) {
-                    if (mCurrPosition == PAGE_POSITION_LEFT) {
-                        adapter.movePageContents(PAGE_POSITION_CENTER, PAGE_POSITION_RIGHT);
-                        adapter.movePageContents(PAGE_POSITION_LEFT, PAGE_POSITION_CENTER);
-                        adapter.setCurrentIndicator(adapter.getPreviousIndicator());
-                        adapter.fillPage(PAGE_POSITION_LEFT);
-                    } else if (mCurrPosition == PAGE_POSITION_RIGHT) {
-                        adapter.movePageContents(PAGE_POSITION_CENTER, PAGE_POSITION_LEFT);
-                        adapter.movePageContents(PAGE_POSITION_RIGHT, PAGE_POSITION_CENTER);
-                        adapter.setCurrentIndicator(adapter.getNextIndicator());
-                        adapter.fillPage(PAGE_POSITION_RIGHT);
-                    }
-                    setCurrentItem(PAGE_POSITION_CENTER, false);
-                }
-            }
-        });
+    /**
+     * Estimates the scroll velocity and prefetches the indicators in scroll direction.
+     * @param position the scroll position in pages.
+     */
+    private void updatePrefetch(final float position) {
+        if (mScrollState == SCROLL_STATE_IDLE) {
+            return;
+        }
+        final long now = SystemClock.uptimeMillis();
+        if (mLastScrollTime != 0 && now > mLastScrollTime && position != mLastScrollPosition) {
+            // pages per millisecond
+            final float velocity = (position - mLastScrollPosition) / (now - mLastScrollTime);
+            final int count = Math.min(mAdapter.getMaxPrefetchDistance(),
+                1 + (int) (Math.abs(velocity) * PREFETCH_LOOKAHEAD_MS));
+            mAdapter.prefetch(velocity > 0 ? 1 : -1, count);
+        }
+        mLastScrollPosition = position;
+        mLastScrollTime = now;
     }
 
     @Override
     public final void setCurrentItem(final int item) {
-        if (item != PAGE_POSITION_CENTER) {
-            throw new RuntimeException("Cannot change page index unless its 1.");
+        if (item != getCenterPosition()) {
+            throw new RuntimeException("Cannot change page index unless its the center page.");
         }
         super.setCurrentItem(item);
     }
 
+    private static void requireCoalescingWindow(final InfinitePagerAdapter adapter) {
+        if (adapter.getOffscreenPageLimit() < 2) {
+            throw new IllegalStateException("Swipe coalescing needs an offscreen page limit of at least 2.");
+        }
+    }
+
+    private int getCenterPosition() {
+        return mAdapter == null ? PAGE_POSITION_CENTER : mAdapter.getCenterPosition();
+    }
+
     /**
-     * Set the current {@code indicator}.
+     * Set the current {@code indicator}. Setting the indicator that is current already does nothing, call
+     * {@link InfinitePagerAdapter#notifyIndicatorChanged(Object)} to rebuild its page instead.
      * @param indicator the new indicator to set.
      */
     public final void setCurrentIndicator(final Object indicator) {
-        final PagerAdapter adapter = getAdapter();
-        if (adapter == null) {
+        setCurrentIndicator(indicator, false);
+    }
+
+    /**
+     * Set the current {@code indicator}. Pages of the window that still show an indicator of the new window
+     * are kept, only the others are rebuilt. Setting the indicator that is current already does nothing, the
+     * pages are not refilled. Call {@link InfinitePagerAdapter#notifyIndicatorChanged(Object)} or
+     * {@link InfinitePagerAdapter#notifyIndicatorsChanged(java.util.Collection)} if their data changed.
+     * @param indicator the new indicator to set.
+     * @param smoothScroll {@code true} to scroll to the page of {@code indicator} if it is already in the
+     *                     window.
+     */
+    public final void setCurrentIndicator(final Object indicator, final boolean smoothScroll) {
+        final InfinitePagerAdapter infinitePagerAdapter = mAdapter;
+        if (infinitePagerAdapter == null) {
             return;
         }
-        final InfinitePagerAdapter infinitePagerAdapter = (InfinitePagerAdapter) adapter;
         final Object currentIndicator = infinitePagerAdapter.getCurrentIndicator();
         if (currentIndicator.getClass() != indicator.getClass()) {
             return;
         }
-        infinitePagerAdapter.reset();
-        infinitePagerAdapter.setCurrentIndicator(indicator);
-        for (int i = 0; i < Constants.PAGE_COUNT; i++) {
-            infinitePagerAdapter.fillPage(i);
+        if (mScrollState == SCROLL_STATE_IDLE) {
+            shiftToCurrentItem();
+        }
+        final int center = infinitePagerAdapter.getCenterPosition();
+        final int offset = infinitePagerAdapter.getOffsetOf(indicator);
+        if (offset == 0) {
+            // the window is up to date, changed data is refreshed through notifyIndicatorChanged
+            return;
+        }
+        if (offset == InfinitePagerAdapter.NO_OFFSET) {
+            infinitePagerAdapter.fillPendingPages();
+            infinitePagerAdapter.reset();
+            infinitePagerAdapter.setCurrentIndicator(indicator);
+            for (int i = 0; i < infinitePagerAdapter.getCount(); i++) {
+                infinitePagerAdapter.fillPage(i);
+            }
+            updatePageVisibility();
+            return;
+        }
+        if (smoothScroll && Math.abs(offset) <= center) {
+            // the pages are shifted once the scroll is idle
+            infinitePagerAdapter.fillPendingPages();
+            super.setCurrentItem(center + offset, true);
+            return;
+        }
+        recenter(infinitePagerAdapter.shiftPages(offset, mFillBudgetNanos > 0));
+        updatePageVisibility();
+        scheduleDeferredFills();
+    }
+
+    /**
+     * Enables coalescing of rapid consecutive swipes. Instead of shifting the pages after every swipe, the
+     * shift is delayed while the window still has room for another swipe. Swipes that follow within the delay
+     * are combined into one shift by the net number of pages moved. The listeners get the indicator of the
+     * selected page right away. A window of one offscreen page per side is always full after a swipe, so
+     * coalescing needs an adapter with a larger offscreen page limit.
+     * @param delayMillis how long to wait for another swipe, {@code 0} disables coalescing.
+     * @throws IllegalStateException if coalescing is enabled for an adapter with one offscreen page per side.
+     */
+    public void setSwipeCoalescingDelay(final long delayMillis) {
+        if (delayMillis > 0 && mAdapter != null) {
+            requireCoalescingWindow(mAdapter);
+        }
+        mSwipeCoalescingDelay = Math.max(0, delayMillis);
+        if (mSwipeCoalescingDelay == 0 && mScrollState == SCROLL_STATE_IDLE) {
+            shiftToCurrentItem();
+        }
+    }
+
+    /**
+     * Enables deferred filling of offscreen pages. After a page change the visible page is moved to the center
+     * right away, while the offscreen pages are filled on the following frames, at most for
+     * {@code budgetMillis} per frame (but at least one page per frame). Pages closer to the center and in the
+     * direction of the last page change are filled first. All pending pages are filled as soon as the user
+     * starts dragging.
+     * @param budgetMillis the time per frame to spend filling pages, {@code 0} fills the pages synchronously.
+     */
+    public void setDeferredFillBudget(final long budgetMillis) {
+        mFillBudgetNanos = Math.max(0, budgetMillis) * 1000000L;
+        if (mFillBudgetNanos == 0 && mAdapter != null) {
+            removeCallbacks(mFillRunnable);
+            mAdapter.fillPendingPages();
+        }
+    }
+
+    /**
+     * Renders the current page and its neighbors into hardware layers while the pager is dragged or settles.
+     * Scrolling then only composes the layers instead of drawing the page hierarchies on every frame.
+     * As soon as the pager is idle, the pages get back the layer types they had before. Pages that are on a
+     * hardware layer already keep it.
+     * @param enabled {@code true} to use hardware layers while scrolling.
+     */
+    public void setScrollingLayersEnabled(final boolean enabled) {
+        mScrollingLayersEnabled = enabled;
+        if (!enabled) {
+            releaseScrollingLayers();
+        } else if (mScrollState != SCROLL_STATE_IDLE) {
+            promoteScrollingLayers();
+        }
+    }
+
+    /**
+     * Keeps the scroll position within the pages that can be reached, see
+     * {@link InfinitePagerAdapter#hasNextIndicator(Object)} and
+     * {@link InfinitePagerAdapter#hasPreviousIndicator(Object)}.
+     */
+    @Override
+    public void scrollTo(final int x, final int y) {
+        final InfinitePagerAdapter adapter = mAdapter;
+        final int pageWidth = getWidth() - getPaddingLeft() - getPaddingRight() + getPageMargin();
+        if (adapter == null || pageWidth <= 0 || !adapter.hasPages()) {
+            super.scrollTo(x, y);
+            return;
+        }
+        final int minX = adapter.getFirstReachablePosition() * pageWidth;
+        final int maxX = adapter.getLastReachablePosition() * pageWidth;
+        super.scrollTo(Math.max(minX, Math.min(maxX, x)), y);
+    }
+
+    /**
+     * Shares the pages of this pager with other pagers using the same pool. The pool is handed to the
+     * current adapter and to every adapter set later, which must have recycling enabled.
+     * When the adapter is replaced, the pages of the old adapter are released into the pool.
+     * @param pool the shared pool or {@code null} to stop sharing pages.
+     * @see InfinitePagerAdapter#setSharedPagePool(SharedPagePool)
+     */
+    public void setSharedPagePool(final SharedPagePool pool) {
+        mSharedPagePool = pool;
+        if (mAdapter != null) {
+            mAdapter.setSharedPagePool(pool);
+        }
+    }
+
+    /**
+     * Releases memory held by the pages. At increasing {@code level} the page cache of the adapter is
+     * evicted, its page pool is cleared and, from {@link ComponentCallbacks2#TRIM_MEMORY_RUNNING_CRITICAL} on,
+     * the offscreen pages are emptied while the pager is idle. Emptied pages are rebuilt when the user starts
+     * dragging or the pages are changed.
+     * @param level one of the {@code ComponentCallbacks2.TRIM_MEMORY_*} levels.
+     * @see #setTrimMemoryAutomatically(boolean)
+     */
+    public void onTrimMemory(final int level) {
+        final InfinitePagerAdapter adapter = mAdapter;
+        if (adapter == null) {
+            return;
+        }
+        final boolean idle = mScrollState == SCROLL_STATE_IDLE;
+        if (idle && level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL) {
+            // the visible page has to be the center page and the pending pages stay pending.
+            shiftToCurrentItem();
+            removeCallbacks(mFillRunnable);
+            endSettle();
+        }
+        adapter.trimMemory(level, idle);
+    }
+
+    /**
+     * Registers the pager for {@link ComponentCallbacks2#onTrimMemory(int)} while it is attached to a window,
+     * so it trims its pages on its own, see {@link #onTrimMemory(int)}.
+     * @param enabled {@code true} to trim automatically.
+     */
+    public void setTrimMemoryAutomatically(final boolean enabled) {
+        if (mTrimMemoryAutomatically == enabled) {
+            return;
+        }
+        mTrimMemoryAutomatically = enabled;
+        if (enabled && getWindowToken() != null) {
+            registerTrimMemoryCallbacks();
+        } else if (!enabled) {
+            unregisterTrimMemoryCallbacks();
+        }
+    }
+
+    @Override
+    protected void onLayout(final boolean changed, final int l, final int t, final int r, final int b) {
+        super.onLayout(changed, l, t, r, b);
+        // shows the current page after the first layout and after its contents were replaced
+        updatePageVisibility();
+    }
+
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        if (mTrimMemoryAutomatically) {
+            registerTrimMemoryCallbacks();
+        }
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        unregisterTrimMemoryCallbacks();
+        if (mAdapter != null) {
+            mAdapter.hideAllPages();
+        }
+        super.onDetachedFromWindow();
+    }
+
+    private void registerTrimMemoryCallbacks() {
+        if (mTrimMemoryCallbacks != null || Build.VERSION.SDK_INT < Build.VERSION_CODES.ICE_CREAM_SANDWICH) {
+            return;
+        }
+        mTrimMemoryCallbacks = new ComponentCallbacks2() {
+            @Override
+            public void onTrimMemory(final int level) {
+                InfiniteViewPager.this.onTrimMemory(level);
+            }
+
+            @Override
+            public void onConfigurationChanged(final Configuration newConfig) {
+            }
+
+            @Override
+            public void onLowMemory() {
+                InfiniteViewPager.this.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_COMPLETE);
+            }
+        };
+        getContext().getApplicationContext().registerComponentCallbacks(mTrimMemoryCallbacks);
+    }
+
+    private void unregisterTrimMemoryCallbacks() {
+        if (mTrimMemoryCallbacks != null) {
+            getContext().getApplicationContext().unregisterComponentCallbacks(mTrimMemoryCallbacks);
+            mTrimMemoryCallbacks = null;
         }
     }
 
+    /**
+     * The offscreen page limit is defined by the adapter, see
+     * {@link InfinitePagerAdapter#InfinitePagerAdapter(Object, int)}.
+     * @param limit the offscreen page limit of the adapter.
+     */
     @Override
     public final void setOffscreenPageLimit(final int limit) {
         if (limit != getOffscreenPageLimit()) {
-            throw new RuntimeException("OffscreenPageLimit cannot be changed.");
+            throw new RuntimeException("OffscreenPageLimit cannot be changed, it is defined by the adapter.");
         }
         super.setOffscreenPageLimit(limit);
     }
 
+    /**
+     * Sets the adapter providing the pages.
+     * @param adapter an {@link InfinitePagerAdapter}.
+     * @throws IllegalStateException if the adapter has a window of more than three pages, but cannot look up
+     * indicators apart from the current one, see {@link InfinitePagerAdapter#getNextIndicator(Object)}, or if
+     * swipes are coalesced and the adapter has one offscreen page per side.
+     */
     @Override
     public void setAdapter(final PagerAdapter adapter) {
         if (adapter instanceof InfinitePagerAdapter) {
+            if (((InfinitePagerAdapter) adapter).getOffscreenPageLimit() > 1) {
+                ((InfinitePagerAdapter) adapter).requireRandomAccess("A window of more than three pages");
+            }
+            if (mSwipeCoalescingDelay > 0) {
+                requireCoalescingWindow((InfinitePagerAdapter) adapter);
+            }
+            if (mAdapter != null) {
+                mAdapter.hideAllPages();
+            }
+            mAdapter = (InfinitePagerAdapter) adapter;
+            if (mSharedPagePool != null) {
+                mAdapter.setSharedPagePool(mSharedPagePool);
+            }
+            super.setOffscreenPageLimit(mAdapter.getOffscreenPageLimit());
             super.setAdapter(adapter);
             initInfiniteViewPager();
         } else {
@@ -184,14 +765,80 @@ public class InfiniteViewPager extends ViewPager {
         }
     }
 
+    /**
+     * Sets the listener for all page change events. Replaces the listener of a previous call.
+     * @param listener the listener.
+     * @see #addOnInfinitePageChangeListener(OnInfinitePageChangeListener, int)
+     */
     public void setOnInfinitePageChangeListener(OnInfinitePageChangeListener listener) {
+        mDispatcher.remove(mListener);
         mListener = listener;
+        mDispatcher.add(listener, EVENT_ALL);
+    }
+
+    /**
+     * Sets a listener that receives the indicators of an {@link IntInfinitePagerAdapter} without boxing.
+     * @param listener the listener.
+     */
+    public void setOnIntInfinitePageChangeListener(OnIntInfinitePageChangeListener listener) {
+        mDispatcher.remove(mIntListener);
+        mIntListener = listener;
+        mDispatcher.add(listener, EVENT_ALL);
+    }
+
+    /**
+     * Sets a listener that receives the indicators of a {@link LongInfinitePagerAdapter} without boxing.
+     * @param listener the listener.
+     */
+    public void setOnLongInfinitePageChangeListener(OnLongInfinitePageChangeListener listener) {
+        mDispatcher.remove(mLongListener);
+        mLongListener = listener;
+        mDispatcher.add(listener, EVENT_ALL);
+    }
+
+    /**
+     * Adds a listener that is only called for the given {@code events}. A listener that only subscribes to
+     * {@link #EVENT_PAGE_SELECTED} is not called on every scroll frame.
+     * @param listener the listener.
+     * @param events a combination of {@link #EVENT_PAGE_SCROLLED}, {@link #EVENT_PAGE_SELECTED} and
+     *               {@link #EVENT_PAGE_SCROLL_STATE_CHANGED}.
+     * @param <T> the indicator datatype of the adapter.
+     */
+    public <T> void addOnInfinitePageChangeListener(OnInfinitePageChangeListener<T> listener, int events) {
+        mDispatcher.add(listener, events);
+    }
+
+    /**
+     * @see #addOnInfinitePageChangeListener(OnInfinitePageChangeListener, int)
+     */
+    public void addOnIntInfinitePageChangeListener(OnIntInfinitePageChangeListener listener, int events) {
+        mDispatcher.add(listener, events);
+    }
+
+    /**
+     * @see #addOnInfinitePageChangeListener(OnInfinitePageChangeListener, int)
+     */
+    public void addOnLongInfinitePageChangeListener(OnLongInfinitePageChangeListener listener, int events) {
+        mDispatcher.add(listener, events);
+    }
+
+    public void removeOnInfinitePageChangeListener(OnInfinitePageChangeListener<?> listener) {
+        mDispatcher.remove(listener);
+    }
+
+    public void removeOnIntInfinitePageChangeListener(OnIntInfinitePageChangeListener listener) {
+        mDispatcher.remove(listener);
+    }
+
+    public void removeOnLongInfinitePageChangeListener(OnLongInfinitePageChangeListener listener) {
+        mDispatcher.remove(listener);
     }
 
     /**
      * Callback interface for responding to changing state of the selected indicator.
+     * @param <T> the indicator datatype of the adapter.
      */
-    public static interface OnInfinitePageChangeListener {
+    public static interface OnInfinitePageChangeListener<T> {
 
         /**
          * This method will be invoked when the current page is scrolled, either as part
@@ -201,13 +848,13 @@ public class InfiniteViewPager extends ViewPager {
          * @param positionOffset Value from [0, 1) indicating the offset from the page at position.
          * @param positionOffsetPixels Value in pixels indicating the offset from position.
          */
-        void onPageScrolled(Object indicator, float positionOffset, int positionOffsetPixels);
+        void onPageScrolled(T indicator, float positionOffset, int positionOffsetPixels);
 
         /**
          * This method will be invoked when a new page has been selected.
          * @param indicator the indicator of this page.
          */
-        void onPageSelected(Object indicator);
+        void onPageSelected(T indicator);
 
         /**
          * Called when the scroll state changes. Useful for discovering when the user
@@ -221,4 +868,32 @@ public class InfiniteViewPager extends ViewPager {
          */
         void onPageScrollStateChanged(final int state);
     }
+
+    /**
+     * Callback interface for responding to changing state of the selected indicator
+     * of an {@link IntInfinitePagerAdapter}.
+     * @see OnInfinitePageChangeListener
+     */
+    public static interface OnIntInfinitePageChangeListener {
+
+        void onPageScrolled(int indicator, float positionOffset, int positionOffsetPixels);
+
+        void onPageSelected(int indicator);
+
+        void onPageScrollStateChanged(final int state);
+    }
+
+    /**
+     * Callback interface for responding to changing state of the selected indicator
+     * of a {@link LongInfinitePagerAdapter}.
+     * @see OnInfinitePageChangeListener
+     */
+    public static interface OnLongInfinitePageChangeListener {
+
+        void onPageScrolled(long indicator, float positionOffset, int positionOffsetPixels);
+
+        void onPageSelected(long indicator);
+
+        void onPageScrollStateChanged(final int state);
+    }
 }
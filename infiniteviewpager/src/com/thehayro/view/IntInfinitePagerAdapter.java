@@ -0,0 +1,247 @@
+/*
+ * Copyright (C) 2013 Onur-Hayri Bakici
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thehayro.view;
+
+import static com.thehayro.internal.Constants.DEFAULT_OFFSCREEN_PAGE_LIMIT;
+
+import android.os.Parcel;
+import android.view.ViewGroup;
+
+/**
+ * {@link com.thehayro.view.InfinitePagerAdapter} for int indicators. The current indicator is kept as a
+ * primitive, so reading it, stepping from it and checking the bounds do not box, and neither does scrolling.
+ * A page change boxes the indicator of every page that enters the window once, like every newly prefetched
+ * indicator.
+ * <p></p>
+ *
+ * When you implement an adapter you must implement {@link #instantiateItem(int)}. By default, the next and
+ * previous indicators are the current indicator plus and minus one.
+ */
+public abstract class IntInfinitePagerAdapter extends PrimitiveInfinitePagerAdapter<Integer> {
+
+    /**
+     * Standard constructor.
+     * @param initValue the initial indicator value the ViewPager should start with.
+     */
+    public IntInfinitePagerAdapter(final int initValue) {
+        this(initValue, DEFAULT_OFFSCREEN_PAGE_LIMIT);
+    }
+
+    /**
+     * Constructor for a window of more than three pages.
+     * @param initValue the initial indicator value the ViewPager should start with.
+     * @param offscreenPageLimit the number of pages that are kept on each side of the current page.
+     */
+    public IntInfinitePagerAdapter(final int initValue, final int offscreenPageLimit) {
+        super(initValue, offscreenPageLimit);
+    }
+
+    protected final int getCurrentIntIndicator() {
+        return (int) getCurrentValue();
+    }
+
+    /**
+     *
+     * @param indicator an indicator.
+     * @return the indicator following {@code indicator}.
+     */
+    public int getNextIndicator(final int indicator) {
+        return indicator + 1;
+    }
+
+    /**
+     *
+     * @param indicator an indicator.
+     * @return the indicator preceding {@code indicator}.
+     */
+    public int getPreviousIndicator(final int indicator) {
+        return indicator - 1;
+    }
+
+    /**
+     * Returns the indicator that is {@code offset} pages away from {@code base}. The default implementation
+     * chains {@link #getNextIndicator(int)} or {@link #getPreviousIndicator(int)}. Override it to compute
+     * the indicator directly, e.g. {@code base + offset}.
+     * @param base the indicator to start from.
+     * @param offset the number of pages to move, negative values move to previous pages.
+     * @return the indicator {@code offset} pages away from {@code base}.
+     */
+    public int getIndicatorAt(final int base, final int offset) {
+        int indicator = base;
+        for (int i = 0, steps = Math.abs(offset); i < steps; i++) {
+            indicator = offset < 0 ? getPreviousIndicator(indicator) : getNextIndicator(indicator);
+        }
+        return indicator;
+    }
+
+    @Override
+    final long stepValue(final long base, final int offset) {
+        return getIndicatorAt((int) base, offset);
+    }
+
+    /**
+     *
+     * @param indicator an indicator.
+     * @return {@code true} if there is a next indicator of {@code indicator}. By default there is no bound.
+     */
+    public boolean hasNextIndicator(final int indicator) {
+        return true;
+    }
+
+    /**
+     *
+     * @param indicator an indicator.
+     * @return {@code true} if there is a previous indicator of {@code indicator}. By default there is no bound.
+     */
+    public boolean hasPreviousIndicator(final int indicator) {
+        return true;
+    }
+
+    @Override
+    final boolean hasValue(final long value, final int direction) {
+        return direction > 0 ? hasNextIndicator((int) value) : hasPreviousIndicator((int) value);
+    }
+
+    @Override
+    final Integer box(final long value) {
+        return Integer.valueOf((int) value);
+    }
+
+    /**
+     * Instantiates a page.
+     * @param indicator the indicator the page should be instantiated with.
+     * @return a ViewGroup containing the page layout.
+     */
+    public abstract ViewGroup instantiateItem(int indicator);
+
+    @Override
+    public final ViewGroup instantiateItem(final Integer indicator) {
+        return instantiateItem(indicator.intValue());
+    }
+
+    /**
+     * Binds a recycled page to {@code indicator}. Only called when recycling is enabled, which requires this
+     * method to be overridden.
+     * @param recycled a page holding the views of a page of the same view type.
+     * @param indicator the indicator the page should be bound to.
+     * @see #setRecyclingEnabled(boolean)
+     */
+    public void bindItem(final ViewGroup recycled, final int indicator) {
+        // nop
+    }
+
+    @Override
+    boolean overridesBindItem() {
+        return overrides(IntInfinitePagerAdapter.class, "bindItem", ViewGroup.class, int.class);
+    }
+
+    @Override
+    public final void bindItem(final ViewGroup recycled, final Integer indicator) {
+        bindItem(recycled, indicator.intValue());
+    }
+
+    /**
+     * Fills the expensive part of a page built as a skeleton.
+     * @param page the page built for {@code indicator}.
+     * @param indicator the indicator of the page.
+     * @see #setContentFillThreshold(float)
+     */
+    public void fillContent(final ViewGroup page, final int indicator) {
+        // nop
+    }
+
+    @Override
+    public final void fillContent(final ViewGroup page, final Integer indicator) {
+        fillContent(page, indicator.intValue());
+    }
+
+    /**
+     * Called when the page of {@code indicator} settled fully on screen.
+     * @param indicator the indicator of the page.
+     * @param page the page view currently showing {@code indicator}.
+     */
+    public void onPageVisible(final int indicator, final ViewGroup page) {
+        // nop
+    }
+
+    @Override
+    public final void onPageVisible(final Integer indicator, final ViewGroup page) {
+        onPageVisible(indicator.intValue(), page);
+    }
+
+    /**
+     * Called on every scroll step for each page that is only partially on screen.
+     * @param indicator the indicator of the page.
+     * @param visibleFraction the fraction of the page that is on screen.
+     */
+    public void onPagePartiallyVisible(final int indicator, final float visibleFraction) {
+        // nop
+    }
+
+    @Override
+    public final void onPagePartiallyVisible(final Integer indicator, final float visibleFraction) {
+        onPagePartiallyVisible(indicator.intValue(), visibleFraction);
+    }
+
+    /**
+     * Called when a visible or partially visible page left the screen.
+     * @param indicator the indicator of the page.
+     * @param page the page view still showing {@code indicator}, or {@code null} if the page is gone already.
+     */
+    public void onPageHidden(final int indicator, final ViewGroup page) {
+        // nop
+    }
+
+    @Override
+    public final void onPageHidden(final Integer indicator, final ViewGroup page) {
+        onPageHidden(indicator.intValue(), page);
+    }
+
+    /**
+     *
+     * @param indicator the indicator of a page.
+     * @return the view type of the page.
+     */
+    public int getItemViewType(final int indicator) {
+        return 0;
+    }
+
+    @Override
+    public final int getItemViewType(final Integer indicator) {
+        return getItemViewType(indicator.intValue());
+    }
+
+    @Override
+    public boolean writeIndicator(final Integer indicator, final Parcel dest) {
+        dest.writeInt(indicator);
+        return true;
+    }
+
+    @Override
+    public Integer readIndicator(final Parcel source) {
+        return source.readInt();
+    }
+
+    @Override
+    public String getStringRepresentation(final Integer currentIndicator) {
+        return String.valueOf(currentIndicator);
+    }
+
+    @Override
+    public Integer convertToIndicator(final String representation) {
+        return Integer.parseInt(representation);
+    }
+}
@@ -0,0 +1,247 @@
+/*
+ * Copyright (C) 2013 Onur-Hayri Bakici
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thehayro.view;
+
+import static com.thehayro.internal.Constants.DEFAULT_OFFSCREEN_PAGE_LIMIT;
+
+import android.os.Parcel;
+import android.view.ViewGroup;
+
+/**
+ * {@link com.thehayro.view.InfinitePagerAdapter} for long indicators. The current indicator is kept as a
+ * primitive, so reading it, stepping from it and checking the bounds do not box, and neither does scrolling.
+ * A page change boxes the indicator of every page that enters the window once, like every newly prefetched
+ * indicator.
+ * <p></p>
+ *
+ * When you implement an adapter you must implement {@link #instantiateItem(long)}. By default, the next and
+ * previous indicators are the current indicator plus and minus one.
+ */
+public abstract class LongInfinitePagerAdapter extends PrimitiveInfinitePagerAdapter<Long> {
+
+    /**
+     * Standard constructor.
+     * @param initValue the initial indicator value the ViewPager should start with.
+     */
+    public LongInfinitePagerAdapter(final long initValue) {
+        this(initValue, DEFAULT_OFFSCREEN_PAGE_LIMIT);
+    }
+
+    /**
+     * Constructor for a window of more than three pages.
+     * @param initValue the initial indicator value the ViewPager should start with.
+     * @param offscreenPageLimit the number of pages that are kept on each side of the current page.
+     */
+    public LongInfinitePagerAdapter(final long initValue, final int offscreenPageLimit) {
+        super(initValue, offscreenPageLimit);
+    }
+
+    protected final long getCurrentLongIndicator() {
+        return getCurrentValue();
+    }
+
+    /**
+     *
+     * @param indicator an indicator.
+     * @return the indicator following {@code indicator}.
+     */
+    public long getNextIndicator(final long indicator) {
+        return indicator + 1;
+    }
+
+    /**
+     *
+     * @param indicator an indicator.
+     * @return the indicator preceding {@code indicator}.
+     */
+    public long getPreviousIndicator(final long indicator) {
+        return indicator - 1;
+    }
+
+    /**
+     * Returns the indicator that is {@code offset} pages away from {@code base}. The default implementation
+     * chains {@link #getNextIndicator(long)} or {@link #getPreviousIndicator(long)}. Override it to compute
+     * the indicator directly, e.g. {@code base + offset}.
+     * @param base the indicator to start from.
+     * @param offset the number of pages to move, negative values move to previous pages.
+     * @return the indicator {@code offset} pages away from {@code base}.
+     */
+    public long getIndicatorAt(final long base, final int offset) {
+        long indicator = base;
+        for (int i = 0, steps = Math.abs(offset); i < steps; i++) {
+            indicator = offset < 0 ? getPreviousIndicator(indicator) : getNextIndicator(indicator);
+        }
+        return indicator;
+    }
+
+    @Override
+    final long stepValue(final long base, final int offset) {
+        return getIndicatorAt((long) base, offset);
+    }
+
+    /**
+     *
+     * @param indicator an indicator.
+     * @return {@code true} if there is a next indicator of {@code indicator}. By default there is no bound.
+     */
+    public boolean hasNextIndicator(final long indicator) {
+        return true;
+    }
+
+    /**
+     *
+     * @param indicator an indicator.
+     * @return {@code true} if there is a previous indicator of {@code indicator}. By default there is no bound.
+     */
+    public boolean hasPreviousIndicator(final long indicator) {
+        return true;
+    }
+
+    @Override
+    final boolean hasValue(final long value, final int direction) {
+        return direction > 0 ? hasNextIndicator((long) value) : hasPreviousIndicator((long) value);
+    }
+
+    @Override
+    final Long box(final long value) {
+        return Long.valueOf((long) value);
+    }
+
+    /**
+     * Instantiates a page.
+     * @param indicator the indicator the page should be instantiated with.
+     * @return a ViewGroup containing the page layout.
+     */
+    public abstract ViewGroup instantiateItem(long indicator);
+
+    @Override
+    public final ViewGroup instantiateItem(final Long indicator) {
+        return instantiateItem(indicator.longValue());
+    }
+
+    /**
+     * Binds a recycled page to {@code indicator}. Only called when recycling is enabled, which requires this
+     * method to be overridden.
+     * @param recycled a page holding the views of a page of the same view type.
+     * @param indicator the indicator the page should be bound to.
+     * @see #setRecyclingEnabled(boolean)
+     */
+    public void bindItem(final ViewGroup recycled, final long indicator) {
+        // nop
+    }
+
+    @Override
+    boolean overridesBindItem() {
+        return overrides(LongInfinitePagerAdapter.class, "bindItem", ViewGroup.class, long.class);
+    }
+
+    @Override
+    public final void bindItem(final ViewGroup recycled, final Long indicator) {
+        bindItem(recycled, indicator.longValue());
+    }
+
+    /**
+     * Fills the expensive part of a page built as a skeleton.
+     * @param page the page built for {@code indicator}.
+     * @param indicator the indicator of the page.
+     * @see #setContentFillThreshold(float)
+     */
+    public void fillContent(final ViewGroup page, final long indicator) {
+        // nop
+    }
+
+    @Override
+    public final void fillContent(final ViewGroup page, final Long indicator) {
+        fillContent(page, indicator.longValue());
+    }
+
+    /**
+     * Called when the page of {@code indicator} settled fully on screen.
+     * @param indicator the indicator of the page.
+     * @param page the page view currently showing {@code indicator}.
+     */
+    public void onPageVisible(final long indicator, final ViewGroup page) {
+        // nop
+    }
+
+    @Override
+    public final void onPageVisible(final Long indicator, final ViewGroup page) {
+        onPageVisible(indicator.longValue(), page);
+    }
+
+    /**
+     * Called on every scroll step for each page that is only partially on screen.
+     * @param indicator the indicator of the page.
+     * @param visibleFraction the fraction of the page that is on screen.
+     */
+    public void onPagePartiallyVisible(final long indicator, final float visibleFraction) {
+        // nop
+    }
+
+    @Override
+    public final void onPagePartiallyVisible(final Long indicator, final float visibleFraction) {
+        onPagePartiallyVisible(indicator.longValue(), visibleFraction);
+    }
+
+    /**
+     * Called when a visible or partially visible page left the screen.
+     * @param indicator the indicator of the page.
+     * @param page the page view still showing {@code indicator}, or {@code null} if the page is gone already.
+     */
+    public void onPageHidden(final long indicator, final ViewGroup page) {
+        // nop
+    }
+
+    @Override
+    public final void onPageHidden(final Long indicator, final ViewGroup page) {
+        onPageHidden(indicator.longValue(), page);
+    }
+
+    /**
+     *
+     * @param indicator the indicator of a page.
+     * @return the view type of the page.
+     */
+    public int getItemViewType(final long indicator) {
+        return 0;
+    }
+
+    @Override
+    public final int getItemViewType(final Long indicator) {
+        return getItemViewType(indicator.longValue());
+    }
+
+    @Override
+    public boolean writeIndicator(final Long indicator, final Parcel dest) {
+        dest.writeLong(indicator);
+        return true;
+    }
+
+    @Override
+    public Long readIndicator(final Parcel source) {
+        return source.readLong();
+    }
+
+    @Override
+    public String getStringRepresentation(final Long currentIndicator) {
+        return String.valueOf(currentIndicator);
+    }
+
+    @Override
+    public Long convertToIndicator(final String representation) {
+        return Long.parseLong(representation);
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright (C) 2013 Onur-Hayri Bakici
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thehayro.view;
+
+import com.thehayro.internal.PageModel;
+
+import android.support.v4.util.LruCache;
+
+/**
+ * LRU cache of detached pages, keyed by their indicator.
+ * @param <T> the datatype of the {@link com.thehayro.view.InfinitePagerAdapter} indicator.
+ */
+final class PageCache<T> extends LruCache<T, PageModel<?>> {
+
+    private final InfinitePagerAdapter<T> mAdapter;
+
+    PageCache(final InfinitePagerAdapter<T> adapter, final int maxSize) {
+        super(maxSize);
+        mAdapter = adapter;
+    }
+
+    @Override
+    protected int sizeOf(final T key, final PageModel<?> value) {
+        return mAdapter.getPageWeight(key, value.getParentView());
+    }
+
+    @Override
+    protected void entryRemoved(final boolean evicted, final T key, final PageModel<?> oldValue,
+                                final PageModel<?> newValue) {
+        // pages taken out of the cache are back in use
+        if (evicted || (newValue != null && newValue != oldValue)) {
+            mAdapter.evictPage(key, oldValue);
+        }
+    }
+}
@@ -0,0 +1,216 @@
+/*
+ * Copyright (C) 2013 Onur-Hayri Bakici
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thehayro.view;
+
+/**
+ * Dispatches the page change events of an {@link InfiniteViewPager} to its listeners.
+ * Each listener is only called for the events it subscribed to. Dispatching does not allocate, listeners
+ * may add or remove listeners while being called.
+ */
+final class PageChangeDispatcher {
+
+    private static final int KIND_OBJECT = 0;
+    private static final int KIND_INT = 1;
+    private static final int KIND_LONG = 2;
+
+    private static final Object[] NO_LISTENERS = new Object[0];
+    private static final int[] NO_INTS = new int[0];
+
+    /**
+     * The listeners with their event masks and kinds. The arrays are replaced instead of modified, so a
+     * dispatch keeps working on the arrays it started with when a listener adds or removes listeners.
+     */
+    private Object[] mListeners = NO_LISTENERS;
+
+    private int[] mEventMasks = NO_INTS;
+
+    private int[] mKinds = NO_INTS;
+
+    private int mEvents;
+
+    void add(final InfiniteViewPager.OnInfinitePageChangeListener<?> listener, final int events) {
+        add(listener, KIND_OBJECT, events);
+    }
+
+    void add(final InfiniteViewPager.OnIntInfinitePageChangeListener listener, final int events) {
+        add(listener, KIND_INT, events);
+    }
+
+    void add(final InfiniteViewPager.OnLongInfinitePageChangeListener listener, final int events) {
+        add(listener, KIND_LONG, events);
+    }
+
+    private void add(final Object listener, final int kind, final int events) {
+        if (listener == null) {
+            return;
+        }
+        remove(listener);
+        final int size = mListeners.length;
+        final Object[] listeners = new Object[size + 1];
+        final int[] masks = new int[size + 1];
+        final int[] kinds = new int[size + 1];
+        System.arraycopy(mListeners, 0, listeners, 0, size);
+        System.arraycopy(mEventMasks, 0, masks, 0, size);
+        System.arraycopy(mKinds, 0, kinds, 0, size);
+        listeners[size] = listener;
+        masks[size] = events;
+        kinds[size] = kind;
+        mListeners = listeners;
+        mEventMasks = masks;
+        mKinds = kinds;
+        mEvents |= events;
+    }
+
+    void remove(final Object listener) {
+        final int size = mListeners.length;
+        int index = -1;
+        for (int i = 0; i < size; i++) {
+            if (mListeners[i].equals(listener)) {
+                index = i;
+                break;
+            }
+        }
+        if (index < 0) {
+            return;
+        }
+        final Object[] listeners = new Object[size - 1];
+        final int[] masks = new int[size - 1];
+        final int[] kinds = new int[size - 1];
+        System.arraycopy(mListeners, 0, listeners, 0, index);
+        System.arraycopy(mListeners, index + 1, listeners, index, size - index - 1);
+        System.arraycopy(mEventMasks, 0, masks, 0, index);
+        System.arraycopy(mEventMasks, index + 1, masks, index, size - index - 1);
+        System.arraycopy(mKinds, 0, kinds, 0, index);
+        System.arraycopy(mKinds, index + 1, kinds, index, size - index - 1);
+        mListeners = listeners;
+        mEventMasks = masks;
+        mKinds = kinds;
+        mEvents = 0;
+        for (int i = 0; i < masks.length; i++) {
+            mEvents |= masks[i];
+        }
+    }
+
+    /**
+     *
+     * @param event one of the {@code InfiniteViewPager.EVENT_*} flags.
+     * @return {@code true} if at least one listener subscribed to {@code event}.
+     */
+    boolean hasListeners(final int event) {
+        return (mEvents & event) != 0;
+    }
+
+    /**
+     * Dispatches a scroll step.
+     * @param adapter the adapter of the pager.
+     * @param offset the distance of the selected page from the current indicator of the adapter, it is not
+     *               {@code 0} while the pages are not shifted yet.
+     * @param positionOffset the fraction of the page right of the left visible page that is on screen.
+     * @param positionOffsetPixels the same offset in pixels.
+     */
+    @SuppressWarnings("unchecked")
+    void dispatchPageScrolled(final InfinitePagerAdapter adapter, final int offset, final float positionOffset,
+                              final int positionOffsetPixels) {
+        final Object[] listeners = mListeners;
+        final int[] masks = mEventMasks;
+        final int[] kinds = mKinds;
+        for (int i = 0; i < listeners.length; i++) {
+            if ((masks[i] & InfiniteViewPager.EVENT_PAGE_SCROLLED) == 0) {
+                continue;
+            }
+            switch (kinds[i]) {
+                case KIND_INT:
+                    if (adapter instanceof IntInfinitePagerAdapter) {
+                        ((InfiniteViewPager.OnIntInfinitePageChangeListener) listeners[i]).onPageScrolled(
+                            (int) ((IntInfinitePagerAdapter) adapter).getValueOfOffset(offset), positionOffset,
+                            positionOffsetPixels);
+                    }
+                    break;
+                case KIND_LONG:
+                    if (adapter instanceof LongInfinitePagerAdapter) {
+                        ((InfiniteViewPager.OnLongInfinitePageChangeListener) listeners[i]).onPageScrolled(
+                            ((LongInfinitePagerAdapter) adapter).getValueOfOffset(offset), positionOffset,
+                            positionOffsetPixels);
+                    }
+                    break;
+                default:
+                    ((InfiniteViewPager.OnInfinitePageChangeListener) listeners[i]).onPageScrolled(
+                        adapter.getIndicatorOfOffset(offset), positionOffset, positionOffsetPixels);
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Dispatches the selection of a page.
+     * @param adapter the adapter of the pager.
+     * @param offset the distance of the selected page from the current indicator of the adapter.
+     */
+    @SuppressWarnings("unchecked")
+    void dispatchPageSelected(final InfinitePagerAdapter adapter, final int offset) {
+        final Object[] listeners = mListeners;
+        final int[] masks = mEventMasks;
+        final int[] kinds = mKinds;
+        for (int i = 0; i < listeners.length; i++) {
+            if ((masks[i] & InfiniteViewPager.EVENT_PAGE_SELECTED) == 0) {
+                continue;
+            }
+            switch (kinds[i]) {
+                case KIND_INT:
+                    if (adapter instanceof IntInfinitePagerAdapter) {
+                        ((InfiniteViewPager.OnIntInfinitePageChangeListener) listeners[i]).onPageSelected(
+                            (int) ((IntInfinitePagerAdapter) adapter).getValueOfOffset(offset));
+                    }
+                    break;
+                case KIND_LONG:
+                    if (adapter instanceof LongInfinitePagerAdapter) {
+                        ((InfiniteViewPager.OnLongInfinitePageChangeListener) listeners[i]).onPageSelected(
+                            ((LongInfinitePagerAdapter) adapter).getValueOfOffset(offset));
+                    }
+                    break;
+                default:
+                    ((InfiniteViewPager.OnInfinitePageChangeListener) listeners[i]).onPageSelected(
+                        adapter.getIndicatorOfOffset(offset));
+                    break;
+            }
+        }
+    }
+
+    void dispatchPageScrollStateChanged(final int state) {
+        final Object[] listeners = mListeners;
+        final int[] masks = mEventMasks;
+        final int[] kinds = mKinds;
+        for (int i = 0; i < listeners.length; i++) {
+            if ((masks[i] & InfiniteViewPager.EVENT_PAGE_SCROLL_STATE_CHANGED) == 0) {
+                continue;
+            }
+            switch (kinds[i]) {
+                case KIND_INT:
+                    ((InfiniteViewPager.OnIntInfinitePageChangeListener) listeners[i])
+                        .onPageScrollStateChanged(state);
+                    break;
+                case KIND_LONG:
+                    ((InfiniteViewPager.OnLongInfinitePageChangeListener) listeners[i])
+                        .onPageScrollStateChanged(state);
+                    break;
+                default:
+                    ((InfiniteViewPager.OnInfinitePageChangeListener) listeners[i])
+                        .onPageScrollStateChanged(state);
+                    break;
+            }
+        }
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright (C) 2013 Onur-Hayri Bakici
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thehayro.view;
+
+/**
+ * Receives performance metrics of the page lifecycle operations of an {@link InfiniteViewPager}.
+ * Install it with {@link InfinitePagerAdapter#setPagerMetrics(PagerMetrics)}. While metrics are installed,
+ * the operations are also emitted as {@code android.os.Trace} sections (API 18+). Without metrics, nothing
+ * is measured. The callbacks are called on the main thread.
+ * @see SimplePagerMetrics
+ */
+public interface PagerMetrics {
+
+    /**
+     * A call of {@link InfinitePagerAdapter#instantiateItem(Object)}.
+     */
+    int OPERATION_INSTANTIATE = 0;
+
+    /**
+     * Filling a page with a new indicator, including instantiating or binding it.
+     */
+    int OPERATION_FILL = 1;
+
+    /**
+     * Moving or rotating page contents to another page.
+     */
+    int OPERATION_MOVE = 2;
+
+    /**
+     * The time from the scroll becoming idle until all pages of the window are filled.
+     */
+    int OPERATION_SETTLE = 3;
+
+    int OPERATION_COUNT = 4;
+
+    /**
+     * Called when an operation finished.
+     * @param operation one of the {@code OPERATION_*} constants.
+     * @param durationNanos the duration of the operation in nanoseconds.
+     */
+    void onOperation(int operation, long durationNanos);
+
+    /**
+     * Called when a page is looked up in the page cache.
+     * @param hit {@code true} if the cache had the page.
+     * @see InfinitePagerAdapter#setPageCacheSize(int)
+     */
+    void onCacheLookup(boolean hit);
+
+    /**
+     * Called when a page is filled while recycling is enabled.
+     * @param hit {@code true} if recycled views were bound, {@code false} if the page had to be instantiated.
+     * @see InfinitePagerAdapter#setRecyclingEnabled(boolean)
+     */
+    void onPoolLookup(boolean hit);
+}
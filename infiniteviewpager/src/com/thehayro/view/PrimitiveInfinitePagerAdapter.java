@@ -0,0 +1,128 @@
+/*
+ * Copyright (C) 2013 Onur-Hayri Bakici
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thehayro.view;
+
+/**
+ * The window bookkeeping shared by {@link IntInfinitePagerAdapter} and {@link LongInfinitePagerAdapter}.
+ * The current indicator is kept as a primitive {@code long}, so stepping from it and checking the bounds do
+ * not box. Indicators are only boxed when they are handed to the generic adapter, i.e. once for every page
+ * that enters the window and for every indicator that is prefetched.
+ * @param <T> the boxed indicator type.
+ */
+abstract class PrimitiveInfinitePagerAdapter<T extends Number> extends InfinitePagerAdapter<T> {
+
+    private long mCurrentValue;
+
+    PrimitiveInfinitePagerAdapter(final T initValue, final int offscreenPageLimit) {
+        super(initValue, offscreenPageLimit);
+        mCurrentValue = initValue.longValue();
+    }
+
+    /**
+     *
+     * @return the current indicator as a primitive.
+     */
+    final long getCurrentValue() {
+        return mCurrentValue;
+    }
+
+    /**
+     *
+     * @param offset the distance from the current indicator.
+     * @return the indicator {@code offset} pages away from the current indicator as a primitive.
+     */
+    final long getValueOfOffset(final int offset) {
+        return offset == 0 ? mCurrentValue : stepValue(mCurrentValue, offset);
+    }
+
+    @Override
+    void setCurrentIndicator(final T indicator) {
+        super.setCurrentIndicator(indicator);
+        mCurrentValue = indicator.longValue();
+    }
+
+    /**
+     *
+     * @param base the indicator to start from.
+     * @param offset the number of pages to move, negative values move to previous pages.
+     * @return the indicator {@code offset} pages away from {@code base}.
+     */
+    abstract long stepValue(long base, int offset);
+
+    /**
+     *
+     * @param value an indicator.
+     * @param direction {@code 1} for next indicators, {@code -1} for previous indicators.
+     * @return {@code true} if there is an indicator following {@code value} in {@code direction}.
+     */
+    abstract boolean hasValue(long value, int direction);
+
+    /**
+     *
+     * @param value an indicator.
+     * @return the boxed indicator.
+     */
+    abstract T box(long value);
+
+    @Override
+    public final T getNextIndicator() {
+        return box(stepValue(mCurrentValue, 1));
+    }
+
+    @Override
+    public final T getPreviousIndicator() {
+        return box(stepValue(mCurrentValue, -1));
+    }
+
+    @Override
+    public final T getNextIndicator(final T indicator) {
+        return box(stepValue(indicator.longValue(), 1));
+    }
+
+    @Override
+    public final T getPreviousIndicator(final T indicator) {
+        return box(stepValue(indicator.longValue(), -1));
+    }
+
+    @Override
+    public final T getIndicatorAt(final T base, final int offset) {
+        return offset == 0 ? base : box(stepValue(base.longValue(), offset));
+    }
+
+    @Override
+    public final boolean hasNextIndicator(final T indicator) {
+        return hasValue(indicator.longValue(), 1);
+    }
+
+    @Override
+    public final boolean hasPreviousIndicator(final T indicator) {
+        return hasValue(indicator.longValue(), -1);
+    }
+
+    @Override
+    int getReachableDistance(final int direction, final int max) {
+        long value = mCurrentValue;
+        for (int distance = 0; distance < max; distance++) {
+            if (!hasValue(value, direction)) {
+                return distance;
+            }
+            if (distance + 1 < max) {
+                value = stepValue(value, direction);
+            }
+        }
+        return max;
+    }
+}
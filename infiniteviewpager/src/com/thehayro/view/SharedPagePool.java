@@ -0,0 +1,51 @@
+/*
+ * Copyright (C) 2013 Onur-Hayri Bakici
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.thehayro.view;
+
+import com.thehayro.internal.PagePool;
+
+/**
+ * A pool of detached pages that can be shared by several {@link InfiniteViewPager}s, e.g. pagers embedded
+ * in the rows of a list. Pages that leave a window or belong to a pager whose adapter is replaced are put
+ * into the pool, and pagers that need a page of the same view type bind a pooled one instead of
+ * instantiating it.
+ * <p>
+ * All adapters sharing a pool must enable recycling, use the same view types for the same page layouts
+ * and run on the main thread. The pooled views keep the context they were created with, so a pool should
+ * not outlive the activity of its pagers.
+ * @see InfiniteViewPager#setSharedPagePool(SharedPagePool)
+ * @see InfinitePagerAdapter#setSharedPagePool(SharedPagePool)
+ */
+public class SharedPagePool extends PagePool {
+
+    public static final int DEFAULT_MAX_PAGES = 20;
+
+    public static final int DEFAULT_MAX_PAGES_PER_TYPE = 5;
+
+    public SharedPagePool() {
+        this(DEFAULT_MAX_PAGES, DEFAULT_MAX_PAGES_PER_TYPE);
+    }
+
+    /**
+     * @param maxPages the number of pages kept over all view types.
+     * @param maxPagesPerType the number of pages kept per view type, unless set otherwise by
+     *                        {@link #setMaxScrap(int, int)}.
+     */
+    public SharedPagePool(final int maxPages, final int maxPagesPerType) {
+        super(maxPagesPerType, maxPages);
+    }
+}
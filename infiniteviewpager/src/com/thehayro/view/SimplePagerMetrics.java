@@ -0,0 +1,174 @@
+/*
+ * Copyright (C) 2013 Onur-Hayri Bakici
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thehayro.view;
+
+import java.util.Arrays;
+
+/**
+ * {@link PagerMetrics} that counts the operations and keeps a latency histogram for each of them.
+ * The histograms have power of two buckets in microseconds.
+ */
+public class SimplePagerMetrics implements PagerMetrics {
+
+    private static final int BUCKET_COUNT = 32;
+
+    private final long[][] mHistograms = new long[OPERATION_COUNT][BUCKET_COUNT];
+
+    private final long[] mCounts = new long[OPERATION_COUNT];
+
+    private final long[] mTotalNanos = new long[OPERATION_COUNT];
+
+    private final long[] mMaxNanos = new long[OPERATION_COUNT];
+
+    private long mCacheHits;
+
+    private long mCacheMisses;
+
+    private long mPoolHits;
+
+    private long mPoolMisses;
+
+    @Override
+    public void onOperation(final int operation, final long durationNanos) {
+        mCounts[operation]++;
+        mTotalNanos[operation] += durationNanos;
+        mMaxNanos[operation] = Math.max(mMaxNanos[operation], durationNanos);
+        mHistograms[operation][getBucket(durationNanos / 1000)]++;
+    }
+
+    @Override
+    public void onCacheLookup(final boolean hit) {
+        if (hit) {
+            mCacheHits++;
+        } else {
+            mCacheMisses++;
+        }
+    }
+
+    @Override
+    public void onPoolLookup(final boolean hit) {
+        if (hit) {
+            mPoolHits++;
+        } else {
+            mPoolMisses++;
+        }
+    }
+
+    private static int getBucket(final long micros) {
+        if (micros <= 1) {
+            return 0;
+        }
+        return Math.min(BUCKET_COUNT - 1, 63 - Long.numberOfLeadingZeros(micros));
+    }
+
+    /**
+     *
+     * @param operation one of the {@code OPERATION_*} constants.
+     * @return how often the operation was measured.
+     */
+    public long getCount(final int operation) {
+        return mCounts[operation];
+    }
+
+    /**
+     *
+     * @param operation one of the {@code OPERATION_*} constants.
+     * @return the average duration of the operation in nanoseconds.
+     */
+    public long getAverageNanos(final int operation) {
+        return mCounts[operation] == 0 ? 0 : mTotalNanos[operation] / mCounts[operation];
+    }
+
+    /**
+     *
+     * @param operation one of the {@code OPERATION_*} constants.
+     * @return the longest duration of the operation in nanoseconds.
+     */
+    public long getMaxNanos(final int operation) {
+        return mMaxNanos[operation];
+    }
+
+    /**
+     *
+     * @param operation one of the {@code OPERATION_*} constants.
+     * @param percentile the percentile between {@code 0} and {@code 100}.
+     * @return the upper bound in microseconds of the histogram bucket that holds the percentile.
+     */
+    public long getPercentileMicros(final int operation, final float percentile) {
+        final long[] histogram = mHistograms[operation];
+        final long threshold = (long) Math.ceil(mCounts[operation] * percentile / 100f);
+        long count = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            count += histogram[i];
+            if (count >= threshold && count > 0) {
+                return 1L << (i + 1);
+            }
+        }
+        return 0;
+    }
+
+    /**
+     *
+     * @param operation one of the {@code OPERATION_*} constants.
+     * @return a copy of the histogram, bucket {@code i} counts durations below {@code 2^(i + 1)} microseconds.
+     */
+    public long[] getHistogram(final int operation) {
+        return mHistograms[operation].clone();
+    }
+
+    /**
+     *
+     * @return the share of page cache lookups that were hits, between {@code 0} and {@code 1}.
+     */
+    public float getCacheHitRate() {
+        final long lookups = mCacheHits + mCacheMisses;
+        return lookups == 0 ? 0f : (float) mCacheHits / lookups;
+    }
+
+    /**
+     *
+     * @return the share of recycled page fills that did not need to instantiate, between {@code 0} and
+     * {@code 1}.
+     */
+    public float getPoolHitRate() {
+        final long lookups = mPoolHits + mPoolMisses;
+        return lookups == 0 ? 0f : (float) mPoolHits / lookups;
+    }
+
+    public void reset() {
+        for (int i = 0; i < OPERATION_COUNT; i++) {
+            Arrays.fill(mHistograms[i], 0);
+        }
+        Arrays.fill(mCounts, 0);
+        Arrays.fill(mTotalNanos, 0);
+        Arrays.fill(mMaxNanos, 0);
+        mCacheHits = 0;
+        mCacheMisses = 0;
+        mPoolHits = 0;
+        mPoolMisses = 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("instantiate %s avg %sus, fill %s avg %sus, move %s avg %sus, settle %s avg %sus, " +
+            "cache hit rate %s, pool hit rate %s",
+            mCounts[OPERATION_INSTANTIATE], getAverageNanos(OPERATION_INSTANTIATE) / 1000,
+            mCounts[OPERATION_FILL], getAverageNanos(OPERATION_FILL) / 1000,
+            mCounts[OPERATION_MOVE], getAverageNanos(OPERATION_MOVE) / 1000,
+            mCounts[OPERATION_SETTLE], getAverageNanos(OPERATION_SETTLE) / 1000,
+            getCacheHitRate(), getPoolHitRate());
+    }
+}
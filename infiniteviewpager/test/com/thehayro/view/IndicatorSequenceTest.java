@@ -0,0 +1,221 @@
+/*
+ * Copyright (C) 2013 Onur-Hayri Bakici
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.thehayro.view;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class IndicatorSequenceTest {
+
+    /**
+     * Days 5 and 6 of every week are weekend days, so day 0 is a Monday.
+     */
+    private static final int SATURDAY = 5;
+
+    private static final int MONDAY = 7;
+
+    private static final int FRIDAY = 4;
+
+    private static final long TIMEOUT_MILLIS = 5000;
+
+    private BusinessDays mSequence;
+
+    @Before
+    public void setUp() {
+        mSequence = new BusinessDays();
+    }
+
+    @Test
+    public void stepsSkipWeekends() {
+        assertEquals(Integer.valueOf(MONDAY), mSequence.getNext(FRIDAY));
+        assertEquals(Integer.valueOf(FRIDAY), mSequence.getPrevious(MONDAY));
+        assertEquals(Integer.valueOf(MONDAY + 1), mSequence.getIndicatorAt(FRIDAY - 1, 3));
+        assertEquals(Integer.valueOf(FRIDAY - 1), mSequence.getIndicatorAt(MONDAY + 1, -3));
+    }
+
+    @Test
+    public void stepFromOffCalendarValueDoesNotChangeTheReverseStep() {
+        assertEquals(Integer.valueOf(FRIDAY), mSequence.getPrevious(MONDAY));
+
+        assertEquals(Integer.valueOf(MONDAY), mSequence.getNext(SATURDAY));
+
+        assertEquals(Integer.valueOf(FRIDAY), mSequence.getPrevious(MONDAY));
+    }
+
+    @Test
+    public void reverseStepDoesNotDependOnComputationOrder() {
+        assertEquals(Integer.valueOf(MONDAY), mSequence.getNext(SATURDAY));
+
+        assertEquals(Integer.valueOf(FRIDAY), mSequence.getPrevious(MONDAY));
+    }
+
+    @Test
+    public void everyStepIsComputedOnce() {
+        mSequence.getIndicatorAt(0, 10);
+        mSequence.getIndicatorAt(0, -10);
+        final int computations = mSequence.mComputations;
+
+        mSequence.getIndicatorAt(0, 10);
+        mSequence.getIndicatorAt(0, -10);
+        mSequence.getNext(0);
+
+        assertEquals(20, computations);
+        assertEquals(computations, mSequence.mComputations);
+    }
+
+    @Test
+    public void prefetchComputesTheStepsAhead() {
+        mSequence.prefetch(0, 5);
+        final int computations = mSequence.mComputations;
+
+        mSequence.getIndicatorAt(0, 5);
+        mSequence.getIndicatorAt(0, -5);
+
+        assertEquals(10, computations);
+        assertEquals(computations, mSequence.mComputations);
+    }
+
+    @Test(timeout = TIMEOUT_MILLIS)
+    public void slowStepDoesNotBlockOtherSteps() throws InterruptedException {
+        final SlowSteps sequence = new SlowSteps();
+        final Thread background = sequence.stepInBackground();
+
+        // the main thread computes other steps while the slow one is computed
+        assertEquals(Integer.valueOf(1), sequence.getNext(0));
+        assertEquals(Integer.valueOf(-1), sequence.getPrevious(0));
+
+        sequence.mRelease.countDown();
+        background.join();
+        assertEquals(Integer.valueOf(SlowSteps.SLOW + 1), sequence.getNext(SlowSteps.SLOW));
+        assertEquals(1, sequence.mSlowComputations.get());
+    }
+
+    @Test(timeout = TIMEOUT_MILLIS)
+    public void stepComputedBeforeInvalidationIsNotMemoized() throws InterruptedException {
+        final SlowSteps sequence = new SlowSteps();
+        final Thread background = sequence.stepInBackground();
+
+        sequence.invalidate();
+        sequence.mRelease.countDown();
+        background.join();
+
+        assertEquals(Integer.valueOf(SlowSteps.SLOW + 1), sequence.getNext(SlowSteps.SLOW));
+        assertEquals(2, sequence.mSlowComputations.get());
+    }
+
+    /**
+     * Blocks the computation of the next step of {@link #SLOW} until {@link #mRelease} is counted down.
+     */
+    private static final class SlowSteps extends IndicatorSequence<Integer> {
+
+        static final int SLOW = 100;
+
+        final CountDownLatch mComputing = new CountDownLatch(1);
+
+        final CountDownLatch mRelease = new CountDownLatch(1);
+
+        final AtomicInteger mSlowComputations = new AtomicInteger();
+
+        SlowSteps() {
+            super(DEFAULT_MAX_SIZE, new Executor() {
+                @Override
+                public void execute(final Runnable command) {
+                    command.run();
+                }
+            });
+        }
+
+        /**
+         * Starts computing the slow step on another thread and waits until the computation is blocked.
+         * @return the thread computing the step.
+         */
+        Thread stepInBackground() throws InterruptedException {
+            final Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    getNext(SLOW);
+                }
+            });
+            thread.start();
+            mComputing.await();
+            return thread;
+        }
+
+        @Override
+        protected Integer computeNext(final Integer indicator) {
+            if (indicator == SLOW && mSlowComputations.incrementAndGet() == 1) {
+                mComputing.countDown();
+                try {
+                    mRelease.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return indicator + 1;
+        }
+
+        @Override
+        protected Integer computePrevious(final Integer indicator) {
+            return indicator - 1;
+        }
+    }
+
+    private static final class BusinessDays extends IndicatorSequence<Integer> {
+
+        int mComputations;
+
+        BusinessDays() {
+            super(DEFAULT_MAX_SIZE, new Executor() {
+                @Override
+                public void execute(final Runnable command) {
+                    command.run();
+                }
+            });
+        }
+
+        @Override
+        protected Integer computeNext(final Integer indicator) {
+            mComputations++;
+            int day = indicator + 1;
+            while (isWeekend(day)) {
+                day++;
+            }
+            return day;
+        }
+
+        @Override
+        protected Integer computePrevious(final Integer indicator) {
+            mComputations++;
+            int day = indicator - 1;
+            while (isWeekend(day)) {
+                day--;
+            }
+            return day;
+        }
+
+        private static boolean isWeekend(final int day) {
+            final int dayOfWeek = (day % 7 + 7) % 7;
+            return dayOfWeek >= SATURDAY;
+        }
+    }
+}
@@ -0,0 +1,234 @@
+/*
+ * Copyright (C) 2013 Onur-Hayri Bakici
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.thehayro.view;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+public class InfiniteDataSourceTest {
+
+    private static final int CHUNK_SIZE = 4;
+
+    private final QueueExecutor mExecutor = new QueueExecutor();
+
+    @Test
+    public void loadsAChunkInOneBatch() {
+        final FakeStore store = new FakeStore(mExecutor);
+
+        for (int i = 0; i < CHUNK_SIZE; i++) {
+            assertEquals("page " + i, store.get(i));
+        }
+
+        assertEquals(Arrays.asList(0L), store.getLoads());
+    }
+
+    @Test
+    public void negativeIndicesRoundDownToTheirChunk() {
+        final FakeStore store = new FakeStore(mExecutor);
+
+        assertEquals("page -1", store.get(-1));
+        assertEquals("page -4", store.get(-4));
+        assertEquals("page -5", store.get(-5));
+        assertEquals("page -8", store.get(-8));
+
+        assertEquals(Arrays.asList(-4L, -8L), store.getLoads());
+    }
+
+    @Test
+    public void loadsTheNextChunkAheadWhenSwipingForward() {
+        final FakeStore store = new FakeStore(mExecutor);
+        store.get(0);
+        store.get(1);
+        assertEquals(0, mExecutor.size());
+
+        // the far half of the chunk is reached
+        store.get(2);
+        assertEquals(1, mExecutor.size());
+        mExecutor.runAll();
+
+        assertEquals(Arrays.asList(0L, 4L), store.getLoads());
+        assertEquals("page 4", store.peek(4));
+        store.get(4);
+        assertEquals(Arrays.asList(0L, 4L), store.getLoads());
+    }
+
+    @Test
+    public void loadsThePreviousChunkAheadWhenSwipingBackward() {
+        final FakeStore store = new FakeStore(mExecutor);
+        store.get(11);
+        store.get(10);
+        assertEquals(0, mExecutor.size());
+
+        store.get(9);
+        mExecutor.runAll();
+
+        assertEquals(Arrays.asList(8L, 4L), store.getLoads());
+        assertEquals("page 7", store.peek(7));
+    }
+
+    @Test
+    public void prefetchLoadsOnTheExecutor() {
+        final FakeStore store = new FakeStore(mExecutor);
+
+        store.prefetch(-3);
+        store.prefetch(-2);
+        assertNull(store.peek(-3));
+        assertEquals(1, mExecutor.size());
+        mExecutor.runAll();
+
+        assertEquals("page -3", store.peek(-3));
+        assertEquals(Arrays.asList(-4L), store.getLoads());
+    }
+
+    @Test
+    public void waitsForAChunkThatIsStillLoading() throws InterruptedException {
+        final CountDownLatch loading = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final FakeStore store = new FakeStore(mExecutor) {
+            @Override
+            protected List<String> loadRange(final long fromIndex, final int count) {
+                loading.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.loadRange(fromIndex, count);
+            }
+        };
+        final String[] results = new String[2];
+        final Thread first = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                results[0] = store.get(1);
+            }
+        });
+        final Thread second = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                results[1] = store.get(2);
+            }
+        });
+        first.start();
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+        second.start();
+        // the second request blocks on the chunk instead of loading it again
+        second.join(100);
+        assertTrue(second.isAlive());
+
+        release.countDown();
+        first.join(5000);
+        second.join(5000);
+
+        assertEquals("page 1", results[0]);
+        assertEquals("page 2", results[1]);
+        assertEquals(Arrays.asList(0L), store.getLoads());
+    }
+
+    @Test
+    public void missingDataIsNull() {
+        final FakeStore store = new FakeStore(mExecutor) {
+            @Override
+            protected List<String> loadRange(final long fromIndex, final int count) {
+                return super.loadRange(fromIndex, count).subList(0, 2);
+            }
+        };
+
+        assertEquals("page 1", store.get(1));
+        assertNull(store.get(3));
+    }
+
+    @Test
+    public void invalidatedChunkIsLoadedAgain() {
+        final FakeStore store = new FakeStore(mExecutor);
+        store.get(5);
+
+        store.invalidate(6);
+        assertNull(store.peek(5));
+        store.get(5);
+
+        assertEquals(Arrays.asList(4L, 4L), store.getLoads());
+    }
+
+    /**
+     * An in-memory store whose data of index {@code i} is {@code "page i"}.
+     */
+    private static class FakeStore extends InfiniteDataSource<Integer, String> {
+
+        private final List<Long> mLoads = new ArrayList<Long>();
+
+        FakeStore(final Executor executor) {
+            super(CHUNK_SIZE, DEFAULT_MAX_CHUNKS, executor);
+        }
+
+        @Override
+        protected long indexOf(final Integer indicator) {
+            return indicator;
+        }
+
+        @Override
+        protected List<String> loadRange(final long fromIndex, final int count) {
+            synchronized (mLoads) {
+                mLoads.add(fromIndex);
+            }
+            final List<String> data = new ArrayList<String>(count);
+            for (int i = 0; i < count; i++) {
+                data.add("page " + (fromIndex + i));
+            }
+            return data;
+        }
+
+        List<Long> getLoads() {
+            synchronized (mLoads) {
+                return new ArrayList<Long>(mLoads);
+            }
+        }
+    }
+
+    /**
+     * Queues the tasks until {@link #runAll()} is called.
+     */
+    private static final class QueueExecutor implements Executor {
+
+        private final List<Runnable> mTasks = new ArrayList<Runnable>();
+
+        @Override
+        public void execute(final Runnable command) {
+            mTasks.add(command);
+        }
+
+        int size() {
+            return mTasks.size();
+        }
+
+        void runAll() {
+            while (!mTasks.isEmpty()) {
+                mTasks.remove(0).run();
+            }
+        }
+    }
+}
@@ -0,0 +1,401 @@
+/*
+ * Copyright (C) 2013 Onur-Hayri Bakici
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.thehayro.view;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.view.Gravity;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+import android.widget.TextView;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, emulateSdk = 18)
+public class InfinitePagerAdapterTest {
+
+    private static final int CYCLES = 10000;
+
+    @Test
+    public void offsetIgnoresStaleIndicatorOfDeferredPage() {
+        // without a cache or recycling, the moved indicator is also left on the deferred page
+        final TestAdapter adapter = createAdapter(false);
+
+        adapter.shiftPages(-1, true);
+        assertTrue(adapter.hasPendingFills());
+
+        assertEquals(Integer.valueOf(-1), adapter.getCurrentIndicator());
+        assertEquals(0, adapter.getOffsetOf(-1));
+        assertEquals(-1, adapter.getOffsetOf(-2));
+        assertEquals(1, adapter.getOffsetOf(0));
+        // the lookups do not fill the deferred page
+        assertTrue(adapter.hasPendingFills());
+    }
+
+    @Test
+    public void offsetIgnoresReplacedIndicatorOfDeferredPage() {
+        // with recycling, the deferred page holds the contents of the indicator that left the window
+        final TestAdapter adapter = createAdapter(true);
+
+        adapter.shiftPages(-1, true);
+        assertTrue(adapter.hasPendingFills());
+
+        // the indicator beyond the right edge
+        assertEquals(2, adapter.getOffsetOf(1));
+        assertEquals(-1, adapter.getOffsetOf(-2));
+        assertTrue(adapter.hasPendingFills());
+    }
+
+    @Test
+    public void indicatorLeftOnDeferredPageIsSkipped() {
+        final TestAdapter adapter = createAdapter(true);
+
+        adapter.shiftPages(-1, true);
+
+        // the deferred page still holds the contents of 1, which left the window
+        assertFalse(adapter.replacePageContents(1, new FrameLayout(Robolectric.application)));
+        assertEquals(Integer.valueOf(-2), adapter.getIndicatorOfOffset(-1));
+        assertTrue(adapter.hasPendingFills());
+    }
+
+    @Test
+    public void pendingFillsCloseToTheCenterComeFirst() {
+        final TestAdapter adapter = createAdapter(false, 3);
+
+        adapter.trimMemory(ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL, true);
+        assertEquals(Arrays.asList(4, 2, 5, 1, 6, 0), fillPendingPages(adapter, 1));
+
+        adapter.trimMemory(ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL, true);
+        assertEquals(Arrays.asList(2, 4, 1, 5, 0, 6), fillPendingPages(adapter, -1));
+    }
+
+    @Test
+    public void deferredPageIsInWindowWithItsNewIndicator() {
+        final TestAdapter adapter = createAdapter(true);
+
+        adapter.shiftPages(-1, true);
+
+        assertTrue(adapter.hasPendingFills());
+        assertFalse(adapter.isInWindow(1));
+        assertTrue(adapter.isInWindow(-2));
+        assertTrue(adapter.hasPendingFills());
+    }
+
+    @Test
+    public void replacedContentKeepsItsLayoutParams() {
+        final TestAdapter adapter = createAdapter(false);
+        final FrameLayout content = new FrameLayout(Robolectric.application);
+        final FrameLayout.LayoutParams params = new FrameLayout.LayoutParams(100, 200, Gravity.BOTTOM);
+        params.topMargin = 10;
+        content.setLayoutParams(params);
+
+        assertTrue(adapter.replacePageContents(1, content));
+
+        assertSame(adapter.getPageView(2), content.getParent());
+        final FrameLayout.LayoutParams kept = (FrameLayout.LayoutParams) content.getLayoutParams();
+        assertEquals(100, kept.width);
+        assertEquals(200, kept.height);
+        assertEquals(Gravity.BOTTOM, kept.gravity);
+        assertEquals(10, kept.topMargin);
+    }
+
+    @Test
+    public void replacedContentWithoutLayoutParamsFillsThePage() {
+        final TestAdapter adapter = createAdapter(false);
+        final FrameLayout content = new FrameLayout(Robolectric.application);
+
+        assertTrue(adapter.replacePageContents(0, content));
+
+        assertEquals(ViewGroup.LayoutParams.MATCH_PARENT, content.getLayoutParams().width);
+        assertEquals(ViewGroup.LayoutParams.MATCH_PARENT, content.getLayoutParams().height);
+        assertFalse(adapter.replacePageContents(5, new FrameLayout(Robolectric.application)));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void recyclingRequiresBindItem() {
+        new IntInfinitePagerAdapter(0) {
+            @Override
+            public ViewGroup instantiateItem(final int indicator) {
+                return new FrameLayout(Robolectric.application);
+            }
+        }.setRecyclingEnabled(true);
+    }
+
+    @Test
+    public void recyclingWithBindItem() {
+        final InfinitePagerAdapter<String> adapter = new InfinitePagerAdapter<String>("a") {
+            @Override
+            public String getNextIndicator() {
+                return getCurrentIndicator() + "a";
+            }
+
+            @Override
+            public String getPreviousIndicator() {
+                return getCurrentIndicator().substring(1);
+            }
+
+            @Override
+            public ViewGroup instantiateItem(final String indicator) {
+                return new FrameLayout(Robolectric.application);
+            }
+
+            @Override
+            public void bindItem(final ViewGroup recycled, final String indicator) {
+                // nop
+            }
+        };
+        adapter.setRecyclingEnabled(true);
+        assertTrue(adapter.isRecyclingEnabled());
+        assertTrue(createAdapter(true).isRecyclingEnabled());
+    }
+
+    @Test
+    public void movedPagesKeepTheirIndicators() {
+        for (final boolean recycling : new boolean[] {false, true}) {
+            final TestAdapter adapter = createAdapter(recycling);
+
+            adapter.shiftPages(1);
+            adapter.shiftPages(-1);
+            adapter.shiftPages(-1);
+
+            final int center = adapter.getCenterPosition();
+            for (int offset = -1; offset <= 1; offset++) {
+                final int indicator = offset - 1;
+                assertEquals(offset, adapter.getOffsetOf(indicator));
+                final TextView label = (TextView) ((ViewGroup) adapter.getPageView(center + offset)).getChildAt(0);
+                assertEquals(String.valueOf(indicator), label.getText().toString());
+            }
+        }
+    }
+
+    @Test
+    public void indicatorsAreLookedUpWithoutChangingTheCurrentIndicator() {
+        final RandomAccessStepAdapter adapter = new RandomAccessStepAdapter();
+
+        assertEquals(Integer.valueOf(8), adapter.getIndicatorAt(5, 3));
+        assertEquals(Integer.valueOf(2), adapter.getIndicatorAt(5, -3));
+
+        assertEquals(Integer.valueOf(0), adapter.getCurrentIndicator());
+        assertEquals(0, adapter.mCurrentSteps);
+        assertTrue(adapter.hasRandomAccess());
+        adapter.setMaxPrefetchDistance(2);
+    }
+
+    @Test
+    public void currentStepsOnlyReachTheNeighbors() {
+        final StepAdapter adapter = new StepAdapter();
+
+        assertEquals(Integer.valueOf(1), adapter.getIndicatorAt(0, 1));
+        assertEquals(Integer.valueOf(-1), adapter.getIndicatorAt(0, -1));
+        assertEquals(2, adapter.mCurrentSteps);
+        assertFalse(adapter.hasRandomAccess());
+        assertEquals(InfinitePagerAdapter.NO_OFFSET, adapter.getOffsetOf(2));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void prefetchingRequiresRandomAccess() {
+        new StepAdapter().setMaxPrefetchDistance(1);
+    }
+
+    @Test
+    public void prefetchReusesIndicatorsAfterPageChange() {
+        final TestAdapter adapter = createAdapter(false);
+        adapter.setMaxPrefetchDistance(3);
+        adapter.prefetch(1, 3);
+        assertEquals(Arrays.asList(2, 3, 4), adapter.mPrefetches);
+
+        adapter.shiftPages(1);
+        adapter.mLookups = 0;
+        adapter.mPrefetches.clear();
+        adapter.prefetch(1, 3);
+
+        // only the indicator that was not prefetched before is looked up
+        assertEquals(1, adapter.mLookups);
+        assertEquals(Arrays.asList(5), adapter.mPrefetches);
+    }
+
+    @Test
+    public void boundsOfPrimitiveIndicatorsDoNotBox() {
+        final com.sun.management.ThreadMXBean threads = getThreadMXBean();
+        assumeTrue(threads != null);
+        final IntInfinitePagerAdapter adapter = new IntInfinitePagerAdapter(0, 3) {
+            @Override
+            public boolean hasNextIndicator(final int indicator) {
+                return indicator < 1000002;
+            }
+
+            @Override
+            public ViewGroup instantiateItem(final int indicator) {
+                return new FrameLayout(Robolectric.application);
+            }
+        };
+        // outside of the cache of Integer.valueOf
+        final Integer current = 1000000;
+        adapter.setCurrentIndicator(current);
+        assertEquals(adapter.getCenterPosition() + 2, adapter.getLastReachablePosition());
+        assertEquals(0, adapter.getFirstReachablePosition());
+
+        final long threadId = Thread.currentThread().getId();
+        final long before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < CYCLES; i++) {
+            adapter.setCurrentIndicator(current);
+            adapter.getLastReachablePosition();
+        }
+        final long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+        assertTrue("updating the bounds " + CYCLES + " times allocated " + allocated + " bytes",
+            allocated < CYCLES);
+    }
+
+    private static com.sun.management.ThreadMXBean getThreadMXBean() {
+        final java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (!(threads instanceof com.sun.management.ThreadMXBean)) {
+            return null;
+        }
+        final com.sun.management.ThreadMXBean sunThreads = (com.sun.management.ThreadMXBean) threads;
+        if (!sunThreads.isThreadAllocatedMemorySupported()) {
+            return null;
+        }
+        sunThreads.setThreadAllocatedMemoryEnabled(true);
+        return sunThreads;
+    }
+
+    /**
+     * Fills the deferred pages in the order the ViewPager fills them.
+     * @return the indices of the filled pages.
+     */
+    private static List<Integer> fillPendingPages(final InfinitePagerAdapter<?> adapter, final int direction) {
+        final List<Integer> filled = new ArrayList<Integer>();
+        for (int position = adapter.getNextPendingFill(direction); position >= 0;
+             position = adapter.getNextPendingFill(direction)) {
+            adapter.fillPage(position);
+            filled.add(position);
+        }
+        return filled;
+    }
+
+    private static TestAdapter createAdapter(final boolean recycling) {
+        return createAdapter(recycling, 1);
+    }
+
+    private static TestAdapter createAdapter(final boolean recycling, final int offscreenPageLimit) {
+        final Context context = Robolectric.application;
+        final TestAdapter adapter = new TestAdapter(context, offscreenPageLimit);
+        adapter.setRecyclingEnabled(recycling);
+        final FrameLayout container = new FrameLayout(context);
+        for (int i = 0; i < adapter.getCount(); i++) {
+            adapter.instantiateItem(container, i);
+        }
+        return adapter;
+    }
+
+    private static final class TestAdapter extends IntInfinitePagerAdapter {
+
+        private final Context mContext;
+
+        int mLookups;
+
+        final List<Integer> mPrefetches = new ArrayList<Integer>();
+
+        TestAdapter(final Context context, final int offscreenPageLimit) {
+            super(0, offscreenPageLimit);
+            mContext = context;
+        }
+
+        @Override
+        public int getIndicatorAt(final int base, final int offset) {
+            mLookups++;
+            return base + offset;
+        }
+
+        @Override
+        public void onPrefetch(final Integer indicator, final int distance) {
+            mPrefetches.add(indicator);
+        }
+
+        @Override
+        public ViewGroup instantiateItem(final int indicator) {
+            final FrameLayout page = new FrameLayout(mContext);
+            final TextView label = new TextView(mContext);
+            label.setText(String.valueOf(indicator));
+            page.addView(label);
+            return page;
+        }
+
+        @Override
+        public void bindItem(final ViewGroup recycled, final int indicator) {
+            ((TextView) recycled.getChildAt(0)).setText(String.valueOf(indicator));
+        }
+    }
+
+    /**
+     * Steps through the integers with the methods relative to the current indicator.
+     */
+    private static class StepAdapter extends InfinitePagerAdapter<Integer> {
+
+        int mCurrentSteps;
+
+        StepAdapter() {
+            super(0);
+        }
+
+        @Override
+        public Integer getNextIndicator() {
+            mCurrentSteps++;
+            return getCurrentIndicator() + 1;
+        }
+
+        @Override
+        public Integer getPreviousIndicator() {
+            mCurrentSteps++;
+            return getCurrentIndicator() - 1;
+        }
+
+        @Override
+        public ViewGroup instantiateItem(final Integer indicator) {
+            return new FrameLayout(Robolectric.application);
+        }
+    }
+
+    private static final class RandomAccessStepAdapter extends StepAdapter {
+
+        @Override
+        public Integer getNextIndicator(final Integer indicator) {
+            return indicator + 1;
+        }
+
+        @Override
+        public Integer getPreviousIndicator(final Integer indicator) {
+            return indicator - 1;
+        }
+    }
+}
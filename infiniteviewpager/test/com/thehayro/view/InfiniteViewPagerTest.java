@@ -0,0 +1,608 @@
+/*
+ * Copyright (C) 2013 Onur-Hayri Bakici
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.thehayro.view;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import android.app.Activity;
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.os.Parcelable;
+import android.support.v4.view.ViewCompat;
+import android.support.v4.view.ViewPager;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.CheckBox;
+import android.widget.FrameLayout;
+import android.widget.TextView;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Drives an {@link InfiniteViewPager} attached to an activity through fake drags.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, emulateSdk = 18)
+public class InfiniteViewPagerTest {
+
+    private static final int WIDTH_PIXELS = 480;
+
+    private static final int HEIGHT_PIXELS = 800;
+
+    private static final long FRAME_MILLIS = 16;
+
+    private static final int DRAG_FRAMES = 6;
+
+    /**
+     * The fraction of the page width dragged, beyond the half that settles on the neighbor page.
+     */
+    private static final float DRAG_FRACTION = 0.6f;
+
+    private static final int MAX_SETTLE_FRAMES = 200;
+
+    private static final long COALESCING_DELAY_MILLIS = 1000;
+
+    private static final int WARMUP_CYCLES = 50;
+
+    private static final int CYCLES = 500;
+
+    /**
+     * The bytes a swipe cycle may allocate on average beyond a cycle of a pager without any of the features.
+     */
+    private static final int MAX_BYTES_PER_CYCLE = 64;
+
+    private Activity mActivity;
+
+    private InfiniteViewPager mViewPager;
+
+    private int mScrollState = ViewPager.SCROLL_STATE_IDLE;
+
+    @Before
+    public void setUp() {
+        mActivity = Robolectric.buildActivity(Activity.class).create().start().resume().get();
+        mViewPager = new InfiniteViewPager(mActivity);
+    }
+
+    @Test
+    public void coalescedSwipesDispatchTheSelectedIndicators() {
+        final TestAdapter adapter = new TestAdapter(mActivity, 0, 2);
+        setUpPager(adapter);
+        mViewPager.setSwipeCoalescingDelay(COALESCING_DELAY_MILLIS);
+        final List<Integer> selected = new ArrayList<Integer>();
+        mViewPager.addOnIntInfinitePageChangeListener(new SelectionListener(selected),
+            InfiniteViewPager.EVENT_PAGE_SELECTED);
+
+        swipe(1);
+        // the shift waits for another swipe, the listener gets the selected indicator anyway
+        assertEquals(0, adapter.getCurrentIntIndicator());
+        assertEquals(Arrays.asList(1), selected);
+
+        swipe(1);
+        // the window is full, the pages are shifted by both swipes
+        assertEquals(2, adapter.getCurrentIntIndicator());
+        assertEquals(Arrays.asList(1, 2), selected);
+
+        swipe(-1);
+        Robolectric.getUiThreadScheduler().advanceBy(COALESCING_DELAY_MILLIS);
+        assertEquals(1, adapter.getCurrentIntIndicator());
+        // shifting the pages does not select the center page again
+        assertEquals(Arrays.asList(1, 2, 1), selected);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void coalescingNeedsMoreThanOneOffscreenPage() {
+        setUpPager(new TestAdapter(mActivity, 0, 1));
+        mViewPager.setSwipeCoalescingDelay(COALESCING_DELAY_MILLIS);
+    }
+
+    @Test
+    public void placeholderBeyondTheLastIndicatorIsReplacedOnShift() {
+        final TestAdapter adapter = new BoundedAdapter(mActivity, 1);
+        setUpPager(adapter);
+        final int center = adapter.getCenterPosition();
+
+        // the page beyond the last indicator only holds its place
+        assertEquals(center, adapter.getLastReachablePosition());
+        assertNull(adapter.getPageView(center + 1));
+
+        swipe(-1);
+        settle();
+
+        assertEquals(0, adapter.getCurrentIntIndicator());
+        assertEquals(center + 1, adapter.getLastReachablePosition());
+        for (int offset = -1; offset <= 1; offset++) {
+            assertEquals(String.valueOf(offset), getLabel(adapter, center + offset));
+        }
+    }
+
+    @Test
+    public void scrollStopsAtTheLastIndicator() {
+        final TestAdapter adapter = new BoundedAdapter(mActivity, 1);
+        setUpPager(adapter);
+        final int centerX = adapter.getCenterPosition() * WIDTH_PIXELS;
+
+        mViewPager.scrollTo(centerX + WIDTH_PIXELS, 0);
+        assertEquals(centerX, mViewPager.getScrollX());
+
+        swipe(1);
+        settle();
+
+        assertEquals(1, adapter.getCurrentIntIndicator());
+        assertEquals(centerX, mViewPager.getScrollX());
+    }
+
+    @Test
+    public void changedIndicatorsAreRefreshedOnceAndDroppedFromTheCache() {
+        final CachingAdapter adapter = new CachingAdapter(mActivity);
+        setUpPager(adapter);
+        swipe(1);
+        settle();
+        // the page of -1 left the window and is cached
+        assertEquals(1, adapter.getCurrentIntIndicator());
+        assertTrue(adapter.mEvicted.isEmpty());
+        final int instantiated = adapter.mInstantiated.size();
+
+        adapter.notifyIndicatorChanged(1);
+        adapter.notifyIndicatorChanged(-1);
+        adapter.notifyIndicatorChanged(1);
+        // the notifications are handled at once on the next message
+        assertEquals(instantiated, adapter.mInstantiated.size());
+        Robolectric.runUiThreadTasks();
+
+        assertEquals(Arrays.asList(1), adapter.mInstantiated.subList(instantiated, adapter.mInstantiated.size()));
+        // the replaced page of 1 is not kept, neither is the outdated page of -1
+        assertEquals(Arrays.asList(1, -1), adapter.mEvicted);
+        assertEquals("1", getLabel(adapter, adapter.getCenterPosition()));
+    }
+
+    @Test
+    public void trimmedOffscreenPagesAreRebuiltOnDrag() {
+        final TestAdapter adapter = new TestAdapter(mActivity, 0, 1);
+        setUpPager(adapter);
+        final int center = adapter.getCenterPosition();
+
+        mViewPager.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL);
+
+        assertNull(adapter.getPageView(center - 1));
+        assertNull(adapter.getPageView(center + 1));
+        assertEquals("0", getLabel(adapter, center));
+        assertTrue(adapter.hasPendingFills());
+
+        assertTrue(mViewPager.beginFakeDrag());
+        // the user may reach any page now
+        assertFalse(adapter.hasPendingFills());
+        assertEquals("-1", getLabel(adapter, center - 1));
+        assertEquals("1", getLabel(adapter, center + 1));
+        mViewPager.endFakeDrag();
+    }
+
+    @Test
+    public void pageStatesAreRestoredWithTheIndicator() {
+        final CheckBoxAdapter adapter = new CheckBoxAdapter(mActivity);
+        setUpPager(adapter);
+        swipe(1);
+        settle();
+        final int center = adapter.getCenterPosition();
+        getCheckBox(adapter, center).setChecked(true);
+        final Parcelable state = mViewPager.onSaveInstanceState();
+
+        final CheckBoxAdapter restored = new CheckBoxAdapter(mActivity);
+        mViewPager = new InfiniteViewPager(mActivity);
+        mViewPager.setAdapter(restored);
+        // the pages are not instantiated yet, they get their states once they are
+        mViewPager.onRestoreInstanceState(state);
+        mActivity.setContentView(mViewPager);
+        settle();
+
+        assertEquals(1, restored.getCurrentIntIndicator());
+        assertEquals("1", getLabel(restored, center));
+        // the check boxes of all pages share their id
+        assertTrue(getCheckBox(restored, center).isChecked());
+        assertFalse(getCheckBox(restored, center - 1).isChecked());
+        assertFalse(getCheckBox(restored, center + 1).isChecked());
+    }
+
+    @Test
+    public void scrollingLayersRestoreTheLayerTypesOfThePages() {
+        final TestAdapter adapter = new TestAdapter(mActivity, 0, 1);
+        setUpPager(adapter);
+        mViewPager.setScrollingLayersEnabled(true);
+        final int center = adapter.getCenterPosition();
+        final View current = adapter.getPageView(center);
+        final View software = adapter.getPageView(center - 1);
+        final View hardware = adapter.getPageView(center + 1);
+        ViewCompat.setLayerType(software, ViewCompat.LAYER_TYPE_SOFTWARE, null);
+        ViewCompat.setLayerType(hardware, ViewCompat.LAYER_TYPE_HARDWARE, null);
+
+        assertTrue(mViewPager.beginFakeDrag());
+        assertEquals(ViewCompat.LAYER_TYPE_HARDWARE, ViewCompat.getLayerType(current));
+        assertEquals(ViewCompat.LAYER_TYPE_HARDWARE, ViewCompat.getLayerType(software));
+        mViewPager.endFakeDrag();
+        waitForIdle();
+
+        assertEquals(ViewCompat.LAYER_TYPE_NONE, ViewCompat.getLayerType(current));
+        assertEquals(ViewCompat.LAYER_TYPE_SOFTWARE, ViewCompat.getLayerType(software));
+        // the layer of the app is kept
+        assertEquals(ViewCompat.LAYER_TYPE_HARDWARE, ViewCompat.getLayerType(hardware));
+    }
+
+    @Test
+    public void swipeHidesAndShowsEachPageOnce() {
+        assertEquals(Arrays.asList("hidden 0", "visible 1"), swipeVisibilityEvents(0));
+    }
+
+    @Test
+    public void swipeWithDeferredFillsHidesAndShowsEachPageOnce() {
+        assertEquals(Arrays.asList("hidden 0", "visible 1"), swipeVisibilityEvents(1));
+    }
+
+    /**
+     * Swipes to the next page of a window that moves the page contents on a page change.
+     * @param fillBudgetMillis the deferred fill budget, {@code 0} fills the pages synchronously.
+     * @return the visibility events of the swipe, partial visibility left out.
+     */
+    private List<String> swipeVisibilityEvents(final long fillBudgetMillis) {
+        final List<String> events = new ArrayList<String>();
+        final TestAdapter adapter = new TestAdapter(mActivity, 0, 1) {
+            @Override
+            public void onPageVisible(final int indicator, final ViewGroup page) {
+                assertEquals(String.valueOf(indicator), ((TextView) page.getChildAt(0)).getText().toString());
+                events.add("visible " + indicator);
+            }
+
+            @Override
+            public void onPageHidden(final int indicator, final ViewGroup page) {
+                if (page != null && page.getChildCount() > 0) {
+                    assertEquals(String.valueOf(indicator), ((TextView) page.getChildAt(0)).getText().toString());
+                }
+                events.add("hidden " + indicator);
+            }
+        };
+        mViewPager.setDeferredFillBudget(fillBudgetMillis);
+        setUpPager(adapter);
+        assertEquals(Arrays.asList("visible 0"), events);
+        events.clear();
+
+        swipe(1);
+        settle();
+
+        assertEquals(1, adapter.getCurrentIntIndicator());
+        return events;
+    }
+
+    @Test
+    public void swipeCycleDoesNotAllocateForTheScrollFeatures() {
+        final com.sun.management.ThreadMXBean threads = getThreadMXBean();
+        assumeTrue(threads != null);
+        final TestAdapter plain = new TestAdapter(mActivity, 0, 1);
+        plain.setRecyclingEnabled(true);
+        final long plainBytes = measureSwipeCycles(threads, plain);
+
+        final FeatureAdapter features = new FeatureAdapter(mActivity);
+        features.setRecyclingEnabled(true);
+        features.setMaxPrefetchDistance(2);
+        features.setContentFillThreshold(0.5f);
+        mViewPager = new InfiniteViewPager(mActivity);
+        mViewPager.addOnIntInfinitePageChangeListener(new InfiniteViewPager.OnIntInfinitePageChangeListener() {
+            @Override
+            public void onPageScrolled(final int indicator, final float positionOffset,
+                                       final int positionOffsetPixels) {
+                features.mScrolled++;
+            }
+
+            @Override
+            public void onPageSelected(final int indicator) {
+                features.mSelected++;
+            }
+
+            @Override
+            public void onPageScrollStateChanged(final int state) {
+            }
+        }, InfiniteViewPager.EVENT_ALL);
+        final long featureBytes = measureSwipeCycles(threads, features);
+
+        // the swipes go back and forth between 0 and 1, so the indicators are boxed by the integer cache
+        assertTrue(features.mScrolled > 0);
+        assertEquals(2 * (WARMUP_CYCLES + CYCLES), features.mSelected);
+        assertTrue(features.mVisible > 0);
+        assertTrue(features.mPartiallyVisible > 0);
+        assertTrue(features.mHidden > 0);
+        assertTrue(features.mPrefetches > 0);
+        assertTrue(features.mFills > 0);
+        assertTrue(CYCLES + " swipe cycles allocated " + featureBytes + " bytes, " + plainBytes
+            + " bytes without the features", featureBytes - plainBytes <= (long) CYCLES * MAX_BYTES_PER_CYCLE);
+    }
+
+    /**
+     * Swipes to the next page and back {@link #CYCLES} times.
+     * @return the bytes allocated by the swipes, including the page shifts and the layout passes.
+     */
+    private long measureSwipeCycles(final com.sun.management.ThreadMXBean threads,
+                                    final InfinitePagerAdapter<?> adapter) {
+        setUpPager(adapter);
+        for (int i = 0; i < WARMUP_CYCLES; i++) {
+            swipeCycle();
+        }
+        final long threadId = Thread.currentThread().getId();
+        final long before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < CYCLES; i++) {
+            swipeCycle();
+        }
+        return threads.getThreadAllocatedBytes(threadId) - before;
+    }
+
+    private void swipeCycle() {
+        swipe(1);
+        settle();
+        swipe(-1);
+        settle();
+    }
+
+    private void setUpPager(final InfinitePagerAdapter<?> adapter) {
+        mViewPager.setAdapter(adapter);
+        mViewPager.addOnInfinitePageChangeListener(new InfiniteViewPager.OnInfinitePageChangeListener<Object>() {
+            @Override
+            public void onPageScrolled(final Object indicator, final float positionOffset,
+                                       final int positionOffsetPixels) {
+            }
+
+            @Override
+            public void onPageSelected(final Object indicator) {
+            }
+
+            @Override
+            public void onPageScrollStateChanged(final int state) {
+                mScrollState = state;
+            }
+        }, InfiniteViewPager.EVENT_PAGE_SCROLL_STATE_CHANGED);
+        mActivity.setContentView(mViewPager);
+        layout();
+        Robolectric.runUiThreadTasksIncludingDelayedTasks();
+    }
+
+    /**
+     * Drags the pager towards the neighbor page, releases it and runs the frames until the scroll is idle.
+     * Tasks posted once the scroll is idle are not run.
+     * @param direction {@code 1} for the next page, {@code -1} for the previous page.
+     */
+    private void swipe(final int direction) {
+        assertTrue(mViewPager.beginFakeDrag());
+        final float step = WIDTH_PIXELS * DRAG_FRACTION / DRAG_FRAMES;
+        for (int i = 0; i < DRAG_FRAMES; i++) {
+            Robolectric.getUiThreadScheduler().advanceBy(FRAME_MILLIS);
+            mViewPager.fakeDragBy(-direction * step);
+        }
+        mViewPager.endFakeDrag();
+        waitForIdle();
+    }
+
+    /**
+     * Runs the frames until the scroll is idle.
+     */
+    private void waitForIdle() {
+        int frames = 0;
+        while (mScrollState != ViewPager.SCROLL_STATE_IDLE) {
+            assertTrue("the swipe did not settle within " + MAX_SETTLE_FRAMES + " frames",
+                ++frames <= MAX_SETTLE_FRAMES);
+            Robolectric.getUiThreadScheduler().advanceBy(FRAME_MILLIS);
+            mViewPager.computeScroll();
+        }
+    }
+
+    /**
+     * Runs the deferred fills and lays out the re-centered pages.
+     */
+    private void settle() {
+        Robolectric.runUiThreadTasksIncludingDelayedTasks();
+        layout();
+    }
+
+    private void layout() {
+        mViewPager.measure(View.MeasureSpec.makeMeasureSpec(WIDTH_PIXELS, View.MeasureSpec.EXACTLY),
+            View.MeasureSpec.makeMeasureSpec(HEIGHT_PIXELS, View.MeasureSpec.EXACTLY));
+        mViewPager.layout(0, 0, WIDTH_PIXELS, HEIGHT_PIXELS);
+    }
+
+    private static String getLabel(final InfinitePagerAdapter<?> adapter, final int position) {
+        final ViewGroup page = (ViewGroup) adapter.getPageView(position);
+        return ((TextView) page.getChildAt(0)).getText().toString();
+    }
+
+    private static CheckBox getCheckBox(final InfinitePagerAdapter<?> adapter, final int position) {
+        return (CheckBox) adapter.getPageView(position).findViewById(CheckBoxAdapter.CHECK_BOX_ID);
+    }
+
+    private static com.sun.management.ThreadMXBean getThreadMXBean() {
+        final java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (!(threads instanceof com.sun.management.ThreadMXBean)) {
+            return null;
+        }
+        final com.sun.management.ThreadMXBean sunThreads = (com.sun.management.ThreadMXBean) threads;
+        if (!sunThreads.isThreadAllocatedMemorySupported()) {
+            return null;
+        }
+        sunThreads.setThreadAllocatedMemoryEnabled(true);
+        return sunThreads;
+    }
+
+    private static class TestAdapter extends IntInfinitePagerAdapter {
+
+        private final Context mContext;
+
+        TestAdapter(final Context context, final int initValue, final int offscreenPageLimit) {
+            super(initValue, offscreenPageLimit);
+            mContext = context;
+        }
+
+        @Override
+        public int getIndicatorAt(final int base, final int offset) {
+            return base + offset;
+        }
+
+        @Override
+        public ViewGroup instantiateItem(final int indicator) {
+            final FrameLayout page = new FrameLayout(mContext);
+            final TextView label = new TextView(mContext);
+            label.setText(String.valueOf(indicator));
+            page.addView(label);
+            return page;
+        }
+
+        @Override
+        public void bindItem(final ViewGroup recycled, final int indicator) {
+            ((TextView) recycled.getChildAt(0)).setText(String.valueOf(indicator));
+        }
+    }
+
+    /**
+     * Ends at indicator {@code 1}.
+     */
+    private static final class BoundedAdapter extends TestAdapter {
+
+        BoundedAdapter(final Context context, final int initValue) {
+            super(context, initValue, 1);
+        }
+
+        @Override
+        public boolean hasNextIndicator(final int indicator) {
+            return indicator < 1;
+        }
+    }
+
+    private static final class CheckBoxAdapter extends TestAdapter {
+
+        static final int CHECK_BOX_ID = 1;
+
+        CheckBoxAdapter(final Context context) {
+            super(context, 0, 1);
+        }
+
+        @Override
+        public ViewGroup instantiateItem(final int indicator) {
+            final ViewGroup page = super.instantiateItem(indicator);
+            final CheckBox checkBox = new CheckBox(page.getContext());
+            checkBox.setId(CHECK_BOX_ID);
+            page.addView(checkBox);
+            return page;
+        }
+    }
+
+    private static final class CachingAdapter extends TestAdapter {
+
+        final List<Integer> mInstantiated = new ArrayList<Integer>();
+
+        final List<Integer> mEvicted = new ArrayList<Integer>();
+
+        CachingAdapter(final Context context) {
+            super(context, 0, 1);
+            setPageCacheSize(4);
+        }
+
+        @Override
+        public ViewGroup instantiateItem(final int indicator) {
+            mInstantiated.add(indicator);
+            return super.instantiateItem(indicator);
+        }
+
+        @Override
+        protected void onPageEvicted(final Integer indicator, final ViewGroup page) {
+            mEvicted.add(indicator);
+        }
+    }
+
+    private static final class FeatureAdapter extends TestAdapter {
+
+        int mScrolled;
+
+        int mSelected;
+
+        int mVisible;
+
+        int mPartiallyVisible;
+
+        int mHidden;
+
+        int mPrefetches;
+
+        int mFills;
+
+        FeatureAdapter(final Context context) {
+            super(context, 0, 1);
+        }
+
+        @Override
+        public void fillContent(final ViewGroup page, final int indicator) {
+            mFills++;
+        }
+
+        @Override
+        public void onPageVisible(final int indicator, final ViewGroup page) {
+            mVisible++;
+        }
+
+        @Override
+        public void onPagePartiallyVisible(final int indicator, final float visibleFraction) {
+            mPartiallyVisible++;
+        }
+
+        @Override
+        public void onPageHidden(final int indicator, final ViewGroup page) {
+            mHidden++;
+        }
+
+        @Override
+        public void onPrefetch(final Integer indicator, final int distance) {
+            mPrefetches++;
+        }
+    }
+
+    private static final class SelectionListener implements InfiniteViewPager.OnIntInfinitePageChangeListener {
+
+        private final List<Integer> mSelected;
+
+        SelectionListener(final List<Integer> selected) {
+            mSelected = selected;
+        }
+
+        @Override
+        public void onPageScrolled(final int indicator, final float positionOffset, final int positionOffsetPixels) {
+        }
+
+        @Override
+        public void onPageSelected(final int indicator) {
+            mSelected.add(indicator);
+        }
+
+        @Override
+        public void onPageScrollStateChanged(final int state) {
+        }
+    }
+}
@@ -0,0 +1,210 @@
+/*
+ * Copyright (C) 2013 Onur-Hayri Bakici
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.thehayro.view;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import android.support.v4.view.ViewPager;
+import android.view.ViewGroup;
+
+import java.lang.management.ManagementFactory;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, emulateSdk = 18)
+public class PageChangeDispatcherTest {
+
+    private static final int WARMUP_CYCLES = 200;
+
+    private static final int CYCLES = 10000;
+
+    private static final int FRAMES_PER_PHASE = 10;
+
+    private PageChangeDispatcher mDispatcher;
+
+    private TestAdapter mAdapter;
+
+    @Before
+    public void setUp() {
+        mDispatcher = new PageChangeDispatcher();
+        mAdapter = new TestAdapter();
+    }
+
+    @Test
+    public void dragAndSettleCycleDoesNotAllocate() {
+        final com.sun.management.ThreadMXBean threads = getThreadMXBean();
+        assumeTrue(threads != null);
+        final CountingListener all = new CountingListener();
+        final CountingIntListener allInt = new CountingIntListener();
+        final CountingIntListener selectedOnly = new CountingIntListener();
+        mDispatcher.add(all, InfiniteViewPager.EVENT_ALL);
+        mDispatcher.add(allInt, InfiniteViewPager.EVENT_ALL);
+        mDispatcher.add(selectedOnly, InfiniteViewPager.EVENT_PAGE_SELECTED);
+
+        runCycles(WARMUP_CYCLES);
+        final long threadId = Thread.currentThread().getId();
+        final long before = threads.getThreadAllocatedBytes(threadId);
+        runCycles(CYCLES);
+        final long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+
+        // the measurement itself may allocate a few bytes, but nothing may be allocated per cycle
+        assertTrue("dispatching " + CYCLES + " cycles allocated " + allocated + " bytes", allocated < CYCLES);
+        final int cycles = WARMUP_CYCLES + CYCLES;
+        assertEquals(cycles * 2 * FRAMES_PER_PHASE, all.mScrolled);
+        assertEquals(cycles, all.mSelected);
+        assertEquals(cycles * 3, all.mStateChanges);
+        assertEquals(cycles * 2 * FRAMES_PER_PHASE, allInt.mScrolled);
+        assertEquals(cycles, selectedOnly.mSelected);
+        assertEquals(0, selectedOnly.mScrolled);
+        assertEquals(0, selectedOnly.mStateChanges);
+    }
+
+    @Test
+    public void listenerMayRemoveItselfWhileDispatching() {
+        final CountingIntListener first = new CountingIntListener() {
+            @Override
+            public void onPageSelected(final int indicator) {
+                super.onPageSelected(indicator);
+                mDispatcher.remove(this);
+            }
+        };
+        final CountingIntListener second = new CountingIntListener();
+        mDispatcher.add(first, InfiniteViewPager.EVENT_ALL);
+        mDispatcher.add(second, InfiniteViewPager.EVENT_ALL);
+
+        mDispatcher.dispatchPageSelected(mAdapter, 0);
+        mDispatcher.dispatchPageSelected(mAdapter, 0);
+
+        assertEquals(1, first.mSelected);
+        assertEquals(2, second.mSelected);
+        assertTrue(mDispatcher.hasListeners(InfiniteViewPager.EVENT_PAGE_SELECTED));
+    }
+
+    @Test
+    public void eventMasksFollowRemovedListeners() {
+        final CountingListener scrolled = new CountingListener();
+        final CountingListener selected = new CountingListener();
+        mDispatcher.add(scrolled, InfiniteViewPager.EVENT_PAGE_SCROLLED);
+        mDispatcher.add(selected, InfiniteViewPager.EVENT_PAGE_SELECTED);
+
+        mDispatcher.remove(scrolled);
+
+        assertTrue(!mDispatcher.hasListeners(InfiniteViewPager.EVENT_PAGE_SCROLLED));
+        assertTrue(mDispatcher.hasListeners(InfiniteViewPager.EVENT_PAGE_SELECTED));
+        mDispatcher.dispatchPageSelected(mAdapter, 0);
+        assertEquals(1, selected.mSelected);
+    }
+
+    /**
+     * Dispatches the events of a drag that is released and settles on the next page.
+     */
+    private void runCycles(final int cycles) {
+        for (int cycle = 0; cycle < cycles; cycle++) {
+            mDispatcher.dispatchPageScrollStateChanged(ViewPager.SCROLL_STATE_DRAGGING);
+            for (int frame = 0; frame < FRAMES_PER_PHASE; frame++) {
+                mDispatcher.dispatchPageScrolled(mAdapter, 0, frame / (float) (2 * FRAMES_PER_PHASE), frame);
+            }
+            mDispatcher.dispatchPageScrollStateChanged(ViewPager.SCROLL_STATE_SETTLING);
+            mDispatcher.dispatchPageSelected(mAdapter, 0);
+            for (int frame = FRAMES_PER_PHASE; frame < 2 * FRAMES_PER_PHASE; frame++) {
+                mDispatcher.dispatchPageScrolled(mAdapter, 0, frame / (float) (2 * FRAMES_PER_PHASE), frame);
+            }
+            mDispatcher.dispatchPageScrollStateChanged(ViewPager.SCROLL_STATE_IDLE);
+        }
+    }
+
+    private static com.sun.management.ThreadMXBean getThreadMXBean() {
+        final java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (!(threads instanceof com.sun.management.ThreadMXBean)) {
+            return null;
+        }
+        final com.sun.management.ThreadMXBean sunThreads = (com.sun.management.ThreadMXBean) threads;
+        if (!sunThreads.isThreadAllocatedMemorySupported()) {
+            return null;
+        }
+        sunThreads.setThreadAllocatedMemoryEnabled(true);
+        return sunThreads;
+    }
+
+    private static final class TestAdapter extends IntInfinitePagerAdapter {
+
+        TestAdapter() {
+            super(0);
+        }
+
+        @Override
+        public ViewGroup instantiateItem(final int indicator) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private static class CountingListener implements InfiniteViewPager.OnInfinitePageChangeListener<Integer> {
+
+        int mScrolled;
+
+        int mSelected;
+
+        int mStateChanges;
+
+        @Override
+        public void onPageScrolled(final Integer indicator, final float positionOffset,
+                                   final int positionOffsetPixels) {
+            mScrolled++;
+        }
+
+        @Override
+        public void onPageSelected(final Integer indicator) {
+            mSelected++;
+        }
+
+        @Override
+        public void onPageScrollStateChanged(final int state) {
+            mStateChanges++;
+        }
+    }
+
+    private static class CountingIntListener implements InfiniteViewPager.OnIntInfinitePageChangeListener {
+
+        int mScrolled;
+
+        int mSelected;
+
+        int mStateChanges;
+
+        @Override
+        public void onPageScrolled(final int indicator, final float positionOffset, final int positionOffsetPixels) {
+            mScrolled++;
+        }
+
+        @Override
+        public void onPageSelected(final int indicator) {
+            mSelected++;
+        }
+
+        @Override
+        public void onPageScrollStateChanged(final int state) {
+            mStateChanges++;
+        }
+    }
+}